@@ -0,0 +1,83 @@
+package jmh.java.bench;
+
+import main.java.jass.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the time the MctsPlayer takes to choose a card, in representative positions of a turn.
+ * Run with the GC profiler (as the main does), gc.alloc.rate.norm gives the bytes allocated per decision,
+ * and dividing it by the number of iterations gives the bytes allocated per iteration. Each iteration runs
+ * rolloutsPerLeaf simulations, so the throughput in rollouts per second is iterations * rolloutsPerLeaf * 1000
+ * divided by the time of a decision in milliseconds.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MctsPlayerBenchmark {
+
+    private static final long SEED = 2019;
+
+    /**
+     * An enum containing the positions in which the MctsPlayer chooses a card
+     */
+    public enum Position {
+        FIRST_CARD_OF_FIRST_TRICK(0),
+        MIDDLE_OF_TURN(Jass.HAND_SIZE * PlayerId.COUNT / 2 - 1),
+        LAST_BUT_ONE_TRICK((Jass.TRICKS_PER_TURN - 2) * PlayerId.COUNT + 1);
+
+        private final int cardsPlayed;
+
+        Position(int cardsPlayed) {
+            this.cardsPlayed = cardsPlayed;
+        }
+    }
+
+    @Param({"1000", "10000", "100000"})
+    private int iterations;
+
+    @Param({"1", "4"})
+    private int rolloutsPerLeaf;
+
+    @Param
+    private Position position;
+
+    private TurnState state;
+    private CardSet hand;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        Positions positions = new Positions(SEED);
+        positions.next(position.cardsPlayed);
+
+        state = positions.state();
+        hand = positions.hand();
+        player = new MctsPlayer(state.nextPlayer(), SEED, iterations,
+                MctsOptions.DEFAULT.withRolloutsPerLeaf(rolloutsPerLeaf));
+    }
+
+    @Benchmark
+    public Card cardToPlay() {
+        return player.cardToPlay(state, hand);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MctsPlayerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
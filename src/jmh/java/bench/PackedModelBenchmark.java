@@ -0,0 +1,152 @@
+package jmh.java.bench;
+
+import main.java.jass.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks of the packed card model, on the operations used by the simulations of the MctsPlayer.
+ * Every benchmark goes through the same fixed inputs, drawn from random turns with a fixed seed, and the
+ * reported time is the time of one operation.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PackedModelBenchmark {
+
+    private static final long SEED = 2019;
+    private static final int INPUTS = 1024;
+    private static final int LAST_CARD_INDEX = Jass.HAND_SIZE * PlayerId.COUNT - 1;
+
+    private final long[] cardSets = new long[INPUTS];
+    private final int[] indexes = new int[INPUTS];
+    private final int[] trumpCards = new int[INPUTS];
+    private final Card.Color[] colors = new Card.Color[INPUTS];
+    private final int[] tricks = new int[INPUTS];
+    private final long[] hands = new long[INPUTS];
+    private final int[] fullTricks = new int[INPUTS];
+    private final long[] scores = new long[INPUTS];
+    private final TeamId[] teams = new TeamId[INPUTS];
+    private final int[] points = new int[INPUTS];
+    private final TurnState[] states = new TurnState[INPUTS];
+    private final Card[] cards = new Card[INPUTS];
+
+    @Setup
+    public void setUp() {
+        Positions positions = new Positions(SEED);
+
+        for (int i = 0; i < INPUTS; i++) {
+            positions.next(positions.rng().nextInt(Jass.HAND_SIZE * PlayerId.COUNT / 2, LAST_CARD_INDEX + 1));
+            TurnState state = positions.state();
+
+            cardSets[i] = state.packedUnplayedCards();
+            indexes[i] = positions.rng().nextInt(PackedCardSet.size(cardSets[i]));
+            trumpCards[i] = PackedCardSet.get(cardSets[i], indexes[i]);
+            colors[i] = Card.Color.ALL.get(positions.rng().nextInt(Card.Color.COUNT));
+            tricks[i] = state.packedTrick();
+            hands[i] = positions.hand().packed();
+            fullTricks[i] = positions.lastFullTrick();
+            scores[i] = state.packedScore();
+            teams[i] = TeamId.ALL.get(positions.rng().nextInt(TeamId.COUNT));
+            points[i] = PackedTrick.points(fullTricks[i]);
+            states[i] = state;
+            cards[i] = positions.randomPlayableCard();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void cardSetGet(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedCardSet.get(cardSets[i], indexes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void cardSetSize(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedCardSet.size(cardSets[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void cardSetSubsetOfColor(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedCardSet.subsetOfColor(cardSets[i], colors[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void cardSetTrumpAbove(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedCardSet.trumpAbove(trumpCards[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void trickPlayableCards(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedTrick.playableCards(tricks[i], hands[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void trickPoints(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedTrick.points(fullTricks[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void trickWinningPlayer(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedTrick.winningPlayer(fullTricks[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void scoreWithAdditionalTrick(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedScore.withAdditionalTrick(scores[i], teams[i], points[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void scoreNextTurn(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(PackedScore.nextTurn(scores[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void turnStateWithNewCardPlayedAndTrickCollected(Blackhole blackhole) {
+        for (int i = 0; i < INPUTS; i++) {
+            blackhole.consume(states[i].withNewCardPlayedAndTrickCollected(cards[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PackedModelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
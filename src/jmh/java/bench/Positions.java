@@ -0,0 +1,105 @@
+package jmh.java.bench;
+
+import main.java.jass.*;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible positions of a turn, obtained by dealing the cards and playing random playable cards
+ * from a fixed seed
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+final class Positions {
+
+    private final SplittableRandom rng;
+
+    private final long[] hands = new long[PlayerId.COUNT];
+    private TurnState state;
+    private int lastFullTrick;
+
+    private static final int NUMBER_OF_CARDS = Jass.HAND_SIZE * PlayerId.COUNT;
+
+    /**
+     * Builds the generator of positions
+     *
+     * @param seed the seed of the deals and of the cards played
+     */
+    Positions(long seed) {
+        rng = new SplittableRandom(seed);
+    }
+
+    /**
+     * Deals the cards, chooses the trump and the first player, and plays the given number of cards
+     *
+     * @param cardsPlayed the number of cards played since the beginning of the turn, between 0 and 35
+     */
+    void next(int cardsPlayed) {
+        int[] deck = new int[NUMBER_OF_CARDS];
+        for (int i = 0; i < NUMBER_OF_CARDS; i++) {
+            deck[i] = PackedCardSet.get(PackedCardSet.ALL_CARDS, i);
+        }
+        for (int i = NUMBER_OF_CARDS - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int card = deck[i];
+            deck[i] = deck[j];
+            deck[j] = card;
+        }
+        for (int i = 0; i < PlayerId.COUNT; i++) {
+            hands[i] = PackedCardSet.EMPTY;
+            for (int j = 0; j < Jass.HAND_SIZE; j++) {
+                hands[i] = PackedCardSet.add(hands[i], deck[i * Jass.HAND_SIZE + j]);
+            }
+        }
+
+        state = TurnState.initial(Card.Color.ALL.get(rng.nextInt(Card.Color.COUNT)), Score.INITIAL,
+                PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT)));
+        lastFullTrick = PackedTrick.INVALID;
+        for (int i = 0; i < cardsPlayed; i++) {
+            Card card = randomPlayableCard();
+            Trick trick = state.trick().withAddedCard(card);
+            if (trick.isFull())
+                lastFullTrick = trick.packed();
+            hands[state.nextPlayer().ordinal()] = PackedCardSet.remove(hands[state.nextPlayer().ordinal()], card.packed());
+            state = state.withNewCardPlayedAndTrickCollected(card);
+        }
+    }
+
+    /**
+     * @return a random playable card of the next player
+     */
+    Card randomPlayableCard() {
+        CardSet playable = state.trick().playableCards(hand());
+        return playable.get(rng.nextInt(playable.size()));
+    }
+
+    /**
+     * @return the current state of the turn
+     */
+    TurnState state() {
+        return state;
+    }
+
+    /**
+     * @return the hand of the next player
+     */
+    CardSet hand() {
+        return CardSet.ofPacked(hands[state.nextPlayer().ordinal()]);
+    }
+
+    /**
+     * @return the packed last trick which was full, or PackedTrick.INVALID if no trick was full yet
+     */
+    int lastFullTrick() {
+        return lastFullTrick;
+    }
+
+    /**
+     * @return the random generator of the positions, to draw other random inputs from the same seed
+     */
+    SplittableRandom rng() {
+        return rng;
+    }
+}
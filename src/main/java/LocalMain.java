@@ -23,15 +23,19 @@ public final class LocalMain extends Application {
     private final int INDEX_TYPE = 0;
     private final int INDEX_NAME = 1;
     private final int S_INDEX_ITERATIONS = 2;
+    private final int S_INDEX_THREADS = 3;
+    private final int S_INDEX_OPTIONS = 4;
     private final int R_INDEX_HOST = 2;
     private final int INDEX_SEED = 4;
 
     private final int H_NUMBER_OF_ARG_BOUND = 3;
     private final int R_NUMBER_OF_ARG_BOUND = 4;
-    private final int S_NUMBER_OF_ARG_BOUND = 4;
+    private final int S_NUMBER_OF_ARG_BOUND = 6;
 
     private final int DEFAULT_ITERATIONS = 10000;
     private final int MIN_ITERATIONS = 10;
+    private final int DEFAULT_THREADS = 1;
+    private final int MIN_THREADS = 1;
 
     private final int EXIT_STATUS = 1;
 
@@ -62,8 +66,27 @@ public final class LocalMain extends Application {
             String help = "Utilisation: java main.java.LocalMain <j1>…<j4> [<graine>] où " +
                     "<jn> spécifie le joueur n, ainsi:\n" +
                     "\th:<nom>  un joueur humain nommé <nom>\n" +
-                    "\ts:<nom>:<n_itérations>  un joueur simulé (algorithme MCTS) nommé <nom> " +
-                    "qui itéreras <n_itérations> fois\n" +
+                    "\ts:<nom>:<n_itérations>:<n_threads>:<options>  un joueur simulé (algorithme MCTS) nommé <nom> " +
+                    "qui itéreras <n_itérations> fois sur chacun de ses <n_threads> threads, avec les " +
+                    "<options> <clé>=<valeur> séparées par des virgules :\n" +
+                    "\t\tparallel=root|tree  un arbre par thread (par défaut) ou un arbre partagé\n" +
+                    "\t\ttime=<ms>  arrête la recherche après <ms> millisecondes, même avant <n_itérations> ; " +
+                    "l'arbre est alors dimensionné pour 65536 itérations par décision, quel que soit " +
+                    "<n_itérations>, et n'est plus étendu une fois plein\n" +
+                    "\t\tdeal=open|sampled  les autres joueurs peuvent avoir toutes les cartes inconnues (par " +
+                    "défaut) ou chaque itération tire une donne compatible avec les plis joués\n" +
+                    "\t\ttt=<n>  partage les statistiques des états atteints dans des ordres différents dans une " +
+                    "table de transposition de <n> entrées\n" +
+                    "\t\treuse=true|false  garde l'arbre d'une décision pour la suivante du même tour (non par " +
+                    "défaut)\n" +
+                    "\t\tponder=true|false  continue la recherche pendant que les autres joueurs jouent, avec " +
+                    "reuse=true (non par défaut)\n" +
+                    "\t\tpolicy=ucb1|tuned|puct  la politique de sélection : UCB1 (par défaut), UCB1-Tuned ou PUCT\n" +
+                    "\t\tc=<c>  la constante de la politique de sélection (40, 1 et 200 par défaut)\n" +
+                    "\t\trollout=random|greedy  les simulations jouent des cartes aléatoires (par défaut) ou " +
+                    "gagnent les plis au moindre coût et se défaussent des cartes valant le moins de points\n" +
+                    "\t\trollouts=<k>  chaque itération fait <k> simulations et garde la moyenne de leurs points " +
+                    "(1 par défaut)\n" +
                     "\tr:<nom>:<ip>  un joueur distant nommé <nom> accompagné de son adresse IP <ip>\n\n" +
                     "- <graine> spécifie la graine utilisée afin de générer des nombres aléatoires\n" +
                     "- Tous les argument entre <> sont optionnels, et la graine n'est pas obligatoire.";
@@ -145,15 +168,16 @@ public final class LocalMain extends Application {
      */
     private void addSimulatedPlayer(String[] splitString, Map<PlayerId, Player> players,
                                        PlayerId playerId, Random random) {
+        int iterations = DEFAULT_ITERATIONS;
+        int threads = DEFAULT_THREADS;
+
         try {
-            int iterations = DEFAULT_ITERATIONS;
-            boolean isIterationsGiven = splitString.length > 2;
+            boolean isIterationsGiven = splitString.length > S_INDEX_ITERATIONS
+                    && !splitString[S_INDEX_ITERATIONS].isEmpty();
 
             if(isIterationsGiven)
                 iterations = Integer.parseInt(splitString[S_INDEX_ITERATIONS]);
 
-            players.put(playerId, new PacedPlayer(new MctsPlayer(playerId, random.nextLong(),
-                    iterations), PACED_PLAYER_TIME));
             Preconditions.checkArgument(iterations >= MIN_ITERATIONS);
         } catch (NumberFormatException e) {
             System.err.println("Erreur : Le nombre d'itérations n'est pas un entier valide : "
@@ -163,6 +187,50 @@ public final class LocalMain extends Application {
             System.err.println("Erreur : Le nombre d'itérations est inférieur à " + MIN_ITERATIONS);
             System.exit(EXIT_STATUS);
         }
+
+        try {
+            boolean isThreadsGiven = splitString.length > S_INDEX_THREADS
+                    && !splitString[S_INDEX_THREADS].isEmpty();
+
+            if(isThreadsGiven)
+                threads = Integer.parseInt(splitString[S_INDEX_THREADS]);
+
+            Preconditions.checkArgument(threads >= MIN_THREADS);
+        } catch (NumberFormatException e) {
+            System.err.println("Erreur : Le nombre de threads n'est pas un entier valide : "
+                    + splitString[S_INDEX_THREADS]);
+            System.exit(EXIT_STATUS);
+        } catch (IllegalArgumentException a) {
+            System.err.println("Erreur : Le nombre de threads est inférieur à " + MIN_THREADS);
+            System.exit(EXIT_STATUS);
+        }
+
+        MctsOptions options = MctsOptions.DEFAULT.withThreads(threads);
+        if (splitString.length > S_INDEX_OPTIONS && !splitString[S_INDEX_OPTIONS].isEmpty())
+            try {
+                options = options.withOptions(splitString[S_INDEX_OPTIONS]);
+            } catch (IllegalArgumentException e) {
+                invalidOption(e.getMessage());
+            }
+
+        if (MctsPlayer.treeCapacity(iterations, options) > MctsPlayer.MAX_TREE_CAPACITY) {
+            System.err.println("Erreur : l'arbre du joueur simulé serait trop grand, réduisez le nombre "
+                    + "d'itérations ou de threads, ou donnez un temps de recherche (time=<ms>)");
+            System.exit(EXIT_STATUS);
+        }
+
+        players.put(playerId, new PacedPlayer(new MctsPlayer(playerId, random.nextLong(),
+                iterations, options), PACED_PLAYER_TIME));
+    }
+
+    /*
+     * Stops the program after writing in System.err that the given option of a simulated player is invalid
+     *
+     * @param option the invalid option
+     */
+    private void invalidOption(String option) {
+        System.err.println("Erreur : option du joueur simulé invalide : " + option);
+        System.exit(EXIT_STATUS);
     }
 
     /*
@@ -0,0 +1,137 @@
+package main.java.jass;
+
+import java.util.Arrays;
+
+/**
+ * Records, from the tricks played during a turn, the cards each player can still hold. Every player can
+ * hold any card at the beginning of the turn, and a card leaves the sets of all the players once it is played.
+ * The rules of the game then tell which cards a player does not hold :
+ * - a player which neither follows the base color nor plays a trump holds no card of the base color, except
+ *   maybe the jack if the base color is the trump,
+ * - a player which plays a trump under a trump already played, while the base color is not the trump,
+ *   only holds trumps which are under this trump.
+ * The trick is given after every card, and only the cards not seen yet are taken into account. The tracker
+ * also records the order in which the cards of the turn were played.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+final class CardTracker {
+
+    private final long[] possibleCards = new long[PlayerId.COUNT];
+    private final int[] playedCards = new int[Jass.HAND_SIZE * PlayerId.COUNT];
+    private int cardsPlayed;
+    private int trickIndex;
+    private int cardsSeen;
+
+    /**
+     * Builds a tracker in which every player can hold any card
+     */
+    CardTracker() {
+        reset();
+    }
+
+    /**
+     * Forgets everything about the hands of the players, as at the beginning of a turn
+     */
+    void reset() {
+        Arrays.fill(possibleCards, PackedCardSet.ALL_CARDS);
+        cardsPlayed = 0;
+        trickIndex = 0;
+        cardsSeen = 0;
+    }
+
+    /**
+     * Takes into account the cards of the trick which were not seen yet
+     *
+     * @param pkTrick the packed current trick of the turn
+     */
+    void update(int pkTrick) {
+        if (PackedTrick.index(pkTrick) != trickIndex) {
+            trickIndex = PackedTrick.index(pkTrick);
+            cardsSeen = 0;
+        }
+
+        int size = PackedTrick.size(pkTrick);
+        for (; cardsSeen < size; cardsSeen++) {
+            int pkCard = PackedTrick.card(pkTrick, cardsSeen);
+            playedCards[cardsPlayed++] = pkCard;
+            for (int i = 0; i < PlayerId.COUNT; i++) {
+                possibleCards[i] = PackedCardSet.remove(possibleCards[i], pkCard);
+            }
+
+            if (cardsSeen > 0) {
+                int player = PackedTrick.player(pkTrick, cardsSeen).ordinal();
+                possibleCards[player] = PackedCardSet.intersection(possibleCards[player],
+                        allowedCards(pkTrick, cardsSeen, pkCard));
+            }
+        }
+    }
+
+    /**
+     * @param player the PlayerId of a player
+     * @return the packed set of the cards the player can still hold
+     */
+    long possibleCards(PlayerId player) {
+        return possibleCards[player.ordinal()];
+    }
+
+    /**
+     * @return the number of cards played since the beginning of the turn
+     */
+    int cardsPlayed() {
+        return cardsPlayed;
+    }
+
+    /**
+     * @param index the index of a card in the order in which the cards were played, from 0
+     * @return the packed card played at this index
+     */
+    int playedCard(int index) {
+        return playedCards[index];
+    }
+
+    /*
+     * Returns the cards the player of the card at the given index can still hold, given that it played this card
+     * after the previous cards of the trick
+     */
+    private static long allowedCards(int pkTrick, int index, int pkCard) {
+        Card.Color trump = PackedTrick.trump(pkTrick);
+        Card.Color baseColor = PackedTrick.baseColor(pkTrick);
+        Card.Color color = PackedCard.color(pkCard);
+
+        if (color != baseColor && color != trump) {
+            long baseColorCards = PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, baseColor);
+            if (baseColor == trump)
+                baseColorCards = PackedCardSet.remove(baseColorCards, PackedCard.pack(trump, Card.Rank.JACK));
+            return PackedCardSet.complement(baseColorCards);
+        }
+
+        if (color == trump && baseColor != trump) {
+            int bestTrump = bestTrump(pkTrick, index);
+            if (bestTrump != PackedCard.INVALID && PackedCard.isBetter(trump, bestTrump, pkCard))
+                return PackedCardSet.difference(PackedCardSet.subsetOfColor(PackedCardSet.ALL_CARDS, trump),
+                        PackedCardSet.trumpAbove(bestTrump));
+        }
+
+        return PackedCardSet.ALL_CARDS;
+    }
+
+    /*
+     * Returns the best trump among the cards of the trick before the given index, or PackedCard.INVALID
+     * if there is none
+     */
+    private static int bestTrump(int pkTrick, int index) {
+        Card.Color trump = PackedTrick.trump(pkTrick);
+        int best = PackedCard.INVALID;
+        for (int i = 0; i < index; i++) {
+            int pkCard = PackedTrick.card(pkTrick, i);
+            if (PackedCard.color(pkCard) == trump && (best == PackedCard.INVALID
+                    || PackedCard.isBetter(trump, pkCard, best)))
+                best = pkCard;
+        }
+
+        return best;
+    }
+}
@@ -2,7 +2,7 @@ package main.java.jass;
 
 import java.util.*;
 /**
- * A game of Jass
+ * A game of Jass. Each player is only notified of the events it needs (see Player.neededEvents).
  *
  * @author Kilian Schneiter (287496)
  * @author Capucine Berger(269503)
@@ -14,6 +14,7 @@ public final class JassGame {
     private final Random trumpRng;
     private final Map<PlayerId, Player> players;
     private final Map<PlayerId, String> playerNames;
+    private final Map<PlayerId, Set<Player.Event>> neededEvents;
 
     private TurnState turnState;
     private Map<PlayerId, CardSet> handOfCard;
@@ -45,6 +46,12 @@ public final class JassGame {
 
         this.players = Collections.unmodifiableMap(new EnumMap<>(players));
         this.playerNames = Collections.unmodifiableMap(new EnumMap<>(playerNames));
+        this.neededEvents = new EnumMap<>(PlayerId.class);
+        for (PlayerId p : PlayerId.ALL) {
+            Set<Player.Event> events = EnumSet.noneOf(Player.Event.class);
+            events.addAll(players.get(p).neededEvents());
+            neededEvents.put(p, events);
+        }
 
         turnState = TurnState.ofPackedComponents(0L, PackedCardSet.ALL_CARDS, PackedTrick.EMPTY_CARD_TRICK);
     }
@@ -59,6 +66,15 @@ public final class JassGame {
                 || turnState.score().totalPoints(TeamId.TEAM_2) >= Jass.WINNING_POINTS;
     }
 
+    /**
+     * Gives the score of the game, which is the final one once the game is over
+     *
+     * @return the current score
+     */
+    public Score score() {
+        return turnState.score();
+    }
+
     /**
      * Finishes a trick and sets everything up for the next
      */
@@ -75,7 +91,8 @@ public final class JassGame {
             if(turnState.score().equals(Score.INITIAL)) {
                 firstPlayerOfTheGame = firstPlayer();
                 for(PlayerId p : PlayerId.ALL) {
-                    players.get(p).setPlayers(p, playerNames);
+                    if (needs(p, Player.Event.PLAYERS))
+                        players.get(p).setPlayers(p, playerNames);
                 }
             }
             firstPlayerOfTheTrick = PlayerId.ALL.get((firstPlayerOfTheGame.ordinal()
@@ -145,7 +162,8 @@ public final class JassGame {
         Card.Color trumpColor = setTrump();
 
         for(PlayerId p : PlayerId.ALL) {
-            players.get(p).setTrump(trumpColor);
+            if (needs(p, Player.Event.TRUMP))
+                players.get(p).setTrump(trumpColor);
         }
 
         return TurnState.initial(trumpColor, turnState.score(), firstPlayerOfTheTrick);
@@ -167,28 +185,40 @@ public final class JassGame {
 
     private void setWinningTeamForEachPlayer(TeamId winningTeam) {
         for(PlayerId p : PlayerId.ALL) {
-            players.get(p).setWinningTeam(winningTeam);
+            if (needs(p, Player.Event.WINNING_TEAM))
+                players.get(p).setWinningTeam(winningTeam);
         }
     }
 
     private void updateTrickForEachPlayer() {
+        Trick trick = turnState.trick();
         for(PlayerId p : PlayerId.ALL) {
-            players.get(p).updateTrick(turnState.trick());
+            if (needs(p, Player.Event.TRICK))
+                players.get(p).updateTrick(trick);
         }
     }
 
     private void updateScoreForEachPlayer() {
         for(PlayerId p : PlayerId.ALL) {
-            players.get(p).updateScore(turnState.score());
+            if (needs(p, Player.Event.SCORE))
+                players.get(p).updateScore(turnState.score());
         }
     }
 
     private void updateHandForEachPlayer() {
         for(PlayerId p : PlayerId.ALL) {
-            players.get(p).updateHand(handOfCard.get(p));
+            if (needs(p, Player.Event.HAND))
+                players.get(p).updateHand(handOfCard.get(p));
         }
     }
 
+    /*
+     * Returns true if the given player needs to be notified of the given event
+     */
+    private boolean needs(PlayerId player, Player.Event event) {
+        return neededEvents.get(player).contains(event);
+    }
+
     private void completeTrick(PlayerId firstToPlay) {
         for(int i = 0; i < PlayerId.COUNT; i ++) {
 
@@ -199,7 +229,8 @@ public final class JassGame {
             Card cardToPlay = player.cardToPlay(turnState, hand);
             handOfCard.replace(currentPlayer, CardSet.ofPacked(
                     PackedCardSet.remove(handOfCard.get(currentPlayer).packed(), cardToPlay.packed())));
-            players.get(currentPlayer).updateHand(handOfCard.get(currentPlayer));
+            if (needs(currentPlayer, Player.Event.HAND))
+                players.get(currentPlayer).updateHand(handOfCard.get(currentPlayer));
 
             turnState = turnState.withNewCardPlayed(cardToPlay);
             updateTrickForEachPlayer();
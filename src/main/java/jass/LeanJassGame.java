@@ -0,0 +1,237 @@
+package main.java.jass;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A game of Jass for bulk simulations, played exactly as a JassGame with the same seed and players (same deals,
+ * trumps, tricks and score), but whose state is kept in packed form : the hands are a long[4], the deck is a
+ * primitive array shuffled in place with the same sequence of random numbers as Collections.shuffle, and the
+ * players are reached through an array instead of maps.
+ *
+ * The notifications at the start of a trick are batched player by player (hand, score and trick of a player,
+ * then the ones of the next player), a single Trick is built after each card for all the players, and each player
+ * is only notified of the events it needs (see Player.neededEvents), so that the cost of a game mostly comes from
+ * the players themselves.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class LeanJassGame {
+
+    private final Random shuffleRng;
+    private final Random trumpRng;
+    private final Player[] players = new Player[PlayerId.COUNT];
+    private final int[] neededEvents = new int[PlayerId.COUNT]; // bit i set if the player needs the Event of ordinal i
+    private final Map<PlayerId, String> playerNames;
+
+    private final long[] hands = new long[PlayerId.COUNT];
+    private final int[] deck = new int[DECK_SIZE];
+
+    private long pkScore = PackedScore.INITIAL;
+    private long pkUnplayedCards = PackedCardSet.ALL_CARDS;
+    private int pkTrick = PackedTrick.EMPTY_CARD_TRICK;
+
+    private int turnNumber = 0;
+    private int firstPlayerOfTheGame;
+
+    private static final int DECK_SIZE = PlayerId.COUNT * Jass.HAND_SIZE;
+    private static final int[] SORTED_DECK = sortedDeck();
+    private static final int SEVEN_OF_DIAMOND = Card.of(Card.Color.DIAMOND, Card.Rank.SEVEN).packed();
+
+    /**
+     * Building a new LeanJassGame
+     *
+     * @param rngSeed the seed of the sequence
+     * @param players the map of the players
+     * @param playerNames the map of the name of the player
+     */
+    public LeanJassGame(long rngSeed, Map<PlayerId, Player> players, Map<PlayerId, String> playerNames) {
+        Random rng = new Random(rngSeed);
+        this.shuffleRng = new Random(rng.nextLong());
+        this.trumpRng = new Random(rng.nextLong());
+
+        for (PlayerId p : PlayerId.ALL) {
+            this.players[p.ordinal()] = players.get(p);
+            for (Player.Event event : players.get(p).neededEvents()) {
+                neededEvents[p.ordinal()] |= 1 << event.ordinal();
+            }
+        }
+        this.playerNames = Collections.unmodifiableMap(new EnumMap<>(playerNames));
+    }
+
+    /**
+     * Check if the game is over (one of the team's totalScore is greater than 1000)
+     *
+     * @return true if the game is over
+     */
+    public boolean isGameOver() {
+        return PackedScore.totalPoints(pkScore, TeamId.TEAM_1) >= Jass.WINNING_POINTS
+                || PackedScore.totalPoints(pkScore, TeamId.TEAM_2) >= Jass.WINNING_POINTS;
+    }
+
+    /**
+     * Gives the score of the game, which is the final one once the game is over
+     *
+     * @return the current score
+     */
+    public Score score() {
+        return Score.ofPacked(pkScore);
+    }
+
+    /**
+     * Finishes a trick and sets everything up for the next
+     */
+    public void advanceToEndOfNextTrick() {
+        if (PackedTrick.isFull(pkTrick)) {
+            pkScore = PackedScore.withAdditionalTrick(pkScore, PackedTrick.winningPlayer(pkTrick).team(),
+                    PackedTrick.points(pkTrick));
+            pkTrick = PackedTrick.nextEmpty(pkTrick);
+        }
+
+        int firstPlayerOfTheTrick;
+
+        if (PackedTrick.index(pkTrick) == 0) {
+            shuffleAndDeal();
+
+            if (pkScore == PackedScore.INITIAL) {
+                firstPlayerOfTheGame = holderOf(SEVEN_OF_DIAMOND);
+                for (PlayerId p : PlayerId.ALL) {
+                    if (needs(p.ordinal(), Player.Event.PLAYERS))
+                        players[p.ordinal()].setPlayers(p, playerNames);
+                }
+            }
+            firstPlayerOfTheTrick = (firstPlayerOfTheGame + turnNumber) % PlayerId.COUNT;
+
+            Card.Color trump = Card.Color.ALL.get(trumpRng.nextInt(Card.Color.COUNT));
+            for (int p = 0; p < PlayerId.COUNT; p++) {
+                if (needs(p, Player.Event.TRUMP))
+                    players[p].setTrump(trump);
+            }
+            pkUnplayedCards = PackedCardSet.ALL_CARDS;
+            pkTrick = PackedTrick.firstEmpty(trump, PlayerId.ALL.get(firstPlayerOfTheTrick));
+        } else {
+            firstPlayerOfTheTrick = PackedTrick.player(pkTrick, 0).ordinal();
+        }
+
+        updateTurnState();
+        completeTrick(firstPlayerOfTheTrick);
+
+        if (PackedTrick.isLast(pkTrick)) {
+            if (!isGameOver()) {
+                pkScore = PackedScore.nextTurn(PackedScore.withAdditionalTrick(pkScore,
+                        PackedTrick.winningPlayer(pkTrick).team(), PackedTrick.points(pkTrick)));
+            }
+            pkUnplayedCards = PackedCardSet.ALL_CARDS;
+            pkTrick = PackedTrick.EMPTY_CARD_TRICK;
+            turnNumber++;
+        }
+
+        for (TeamId team : TeamId.ALL) {
+            if (PackedScore.totalPoints(pkScore, team) >= Jass.WINNING_POINTS) {
+                Score score = Score.ofPacked(pkScore);
+                for (int p = 0; p < PlayerId.COUNT; p++) {
+                    if (needs(p, Player.Event.SCORE))
+                        players[p].updateScore(score);
+                    if (needs(p, Player.Event.WINNING_TEAM))
+                        players[p].setWinningTeam(team);
+                }
+                break;
+            }
+        }
+    }
+
+    /*
+     * Shuffles the deck in place, with the Fisher-Yates algorithm of Collections.shuffle, and deals to each
+     * player his hand of cards
+     */
+    private void shuffleAndDeal() {
+        System.arraycopy(SORTED_DECK, 0, deck, 0, DECK_SIZE);
+        for (int i = DECK_SIZE; i > 1; i--) {
+            int j = shuffleRng.nextInt(i);
+            int card = deck[i - 1];
+            deck[i - 1] = deck[j];
+            deck[j] = card;
+        }
+
+        for (int p = 0; p < PlayerId.COUNT; p++) {
+            long hand = PackedCardSet.EMPTY;
+            for (int i = p * Jass.HAND_SIZE; i < (p + 1) * Jass.HAND_SIZE; i++) {
+                hand = PackedCardSet.add(hand, deck[i]);
+            }
+            hands[p] = hand;
+        }
+    }
+
+    /*
+     * Returns the index of the player holding the given card
+     */
+    private int holderOf(int pkCard) {
+        int index = 0;
+        for (int p = 0; p < PlayerId.COUNT; p++) {
+            if (PackedCardSet.contains(hands[p], pkCard))
+                index = p;
+        }
+        return index;
+    }
+
+    /*
+     * Sends to each player his hand, the score and the trick
+     */
+    private void updateTurnState() {
+        Score score = Score.ofPacked(pkScore);
+        Trick trick = Trick.ofPacked(pkTrick);
+        for (int p = 0; p < PlayerId.COUNT; p++) {
+            if (needs(p, Player.Event.HAND))
+                players[p].updateHand(CardSet.ofPacked(hands[p]));
+            if (needs(p, Player.Event.SCORE))
+                players[p].updateScore(score);
+            if (needs(p, Player.Event.TRICK))
+                players[p].updateTrick(trick);
+        }
+    }
+
+    /*
+     * Lets the four players play their card, starting with the given one
+     */
+    private void completeTrick(int firstToPlay) {
+        for (int i = 0; i < PlayerId.COUNT; i++) {
+            int p = (firstToPlay + i) % PlayerId.COUNT;
+
+            TurnState state = TurnState.ofPackedComponents(pkScore, pkUnplayedCards, pkTrick);
+            int pkCard = players[p].cardToPlay(state, CardSet.ofPacked(hands[p])).packed();
+            hands[p] = PackedCardSet.remove(hands[p], pkCard);
+            if (needs(p, Player.Event.HAND))
+                players[p].updateHand(CardSet.ofPacked(hands[p]));
+
+            pkTrick = PackedTrick.withAddedCard(pkTrick, pkCard);
+            pkUnplayedCards = PackedCardSet.remove(pkUnplayedCards, pkCard);
+            Trick trick = Trick.ofPacked(pkTrick);
+            for (int player = 0; player < PlayerId.COUNT; player++) {
+                if (needs(player, Player.Event.TRICK))
+                    players[player].updateTrick(trick);
+            }
+        }
+    }
+
+    /*
+     * Returns true if the player of the given index needs to be notified of the given event
+     */
+    private boolean needs(int player, Player.Event event) {
+        return (neededEvents[player] & (1 << event.ordinal())) != 0;
+    }
+
+    /*
+     * Returns the packed cards in the order of the deck of JassGame, before it is shuffled
+     */
+    private static int[] sortedDeck() {
+        int[] sortedDeck = new int[DECK_SIZE];
+        for (int i = 0; i < DECK_SIZE; i++) {
+            sortedDeck[i] = CardSet.ALL_CARDS.get(i).packed();
+        }
+        return sortedDeck;
+    }
+}
@@ -0,0 +1,395 @@
+package main.java.jass;
+
+import main.java.Preconditions;
+
+/**
+ * The options of a MctsPlayer, other than its number of iterations
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class MctsOptions {
+
+    /**
+     * The time budget of options without time budget, whose search only stops after all its iterations
+     */
+    public static final long NO_TIME_BUDGET = 0;
+
+    /**
+     * The size of the transposition table of options without transposition table
+     */
+    public static final int NO_TRANSPOSITION_TABLE = 0;
+
+    public static final MctsOptions DEFAULT = new MctsOptions(1, Parallelism.ROOT, NO_TIME_BUDGET, false,
+            NO_TRANSPOSITION_TABLE, false, false, new Ucb1Policy(Ucb1Policy.DEFAULT_C), RolloutPolicy.RANDOM, 1);
+
+    private final int threads;
+    private final Parallelism parallelism;
+    private final long timeBudget;
+    private final boolean determinized;
+    private final int transpositionTableSize;
+    private final boolean treeReused;
+    private final boolean pondering;
+    private final SelectionPolicy selectionPolicy;
+    private final RolloutPolicy rolloutPolicy;
+    private final int rolloutsPerLeaf;
+
+    /**
+     * An enum containing the ways the search can be spread over several threads
+     */
+    public enum Parallelism {
+        ROOT,
+        TREE
+    }
+
+    /**
+     * An enum containing the policies choosing the cards played by the simulations of the search
+     */
+    public enum RolloutPolicy {
+        RANDOM,
+        GREEDY
+    }
+
+    private MctsOptions(int threads, Parallelism parallelism, long timeBudget, boolean determinized,
+                        int transpositionTableSize, boolean treeReused, boolean pondering,
+                        SelectionPolicy selectionPolicy, RolloutPolicy rolloutPolicy, int rolloutsPerLeaf) {
+        this.threads = threads;
+        this.parallelism = parallelism;
+        this.timeBudget = timeBudget;
+        this.determinized = determinized;
+        this.transpositionTableSize = transpositionTableSize;
+        this.treeReused = treeReused;
+        this.pondering = pondering;
+        this.selectionPolicy = selectionPolicy;
+        this.rolloutPolicy = rolloutPolicy;
+        this.rolloutsPerLeaf = rolloutsPerLeaf;
+    }
+
+    /**
+     * @return the number of threads used by the search
+     */
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * @return how the search is spread over the threads : ROOT if each thread builds its own tree,
+     * TREE if all the threads expand the same tree
+     */
+    public Parallelism parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the maximal duration of the search in milliseconds, or NO_TIME_BUDGET
+     */
+    public long timeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * @return true if every iteration of the search samples a deal of the cards the MctsPlayer has not seen
+     */
+    public boolean determinized() {
+        return determinized;
+    }
+
+    /**
+     * @return the number of entries of the transposition table of each tree, or NO_TRANSPOSITION_TABLE
+     */
+    public int transpositionTableSize() {
+        return transpositionTableSize;
+    }
+
+    /**
+     * @return true if the tree of a decision is reused by the next decision of the turn, which is always the case
+     * with pondering
+     */
+    public boolean treeReused() {
+        return treeReused || pondering;
+    }
+
+    /**
+     * @return true if the MctsPlayer keeps searching on a background thread between its decisions
+     */
+    public boolean pondering() {
+        return pondering;
+    }
+
+    /**
+     * @return the policy choosing the children explored by the search
+     */
+    public SelectionPolicy selectionPolicy() {
+        return selectionPolicy;
+    }
+
+    /**
+     * @return the policy choosing the cards played by the simulations : RANDOM if they play uniformly random
+     * playable cards, GREEDY if they play as a cautious player would
+     */
+    public RolloutPolicy rolloutPolicy() {
+        return rolloutPolicy;
+    }
+
+    /**
+     * @return the number of simulations run from the Node added by each iteration
+     */
+    public int rolloutsPerLeaf() {
+        return rolloutsPerLeaf;
+    }
+
+    /**
+     * @param threads the number of threads used by the search
+     * @return new options, identical to these except for the number of threads
+     * @throws IllegalArgumentException if threads is smaller than 1
+     */
+    public MctsOptions withThreads(int threads) {
+        Preconditions.checkArgument(threads >= 1);
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * @param parallelism how the search is spread over the threads
+     * @return new options, identical to these except for the parallelism
+     */
+    public MctsOptions withParallelism(Parallelism parallelism) {
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * The search stops as soon as either its time budget is spent or all its iterations are done, and
+     * at least one iteration is always run
+     *
+     * @param timeBudget the maximal duration of the search in milliseconds, or NO_TIME_BUDGET
+     * @return new options, identical to these except for the time budget
+     * @throws IllegalArgumentException if the time budget is negative
+     */
+    public MctsOptions withTimeBudget(long timeBudget) {
+        Preconditions.checkArgument(timeBudget >= 0);
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * With determinization, every iteration deals the cards the MctsPlayer has not seen to the other players,
+     * consistently with what they have played, instead of supposing that each of them can hold all these cards
+     *
+     * @param determinized true if every iteration samples a deal of the unseen cards
+     * @return new options, identical to these except for the determinization
+     */
+    public MctsOptions withDeterminization(boolean determinized) {
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * With a transposition table, the states of a turn reached through different orders of cards share their
+     * statistics. The table has a bounded number of entries, and the entries with the fewest simulations are
+     * replaced when it is full.
+     *
+     * @param transpositionTableSize the number of entries of the table, rounded up to a power of two, or
+     *                               NO_TRANSPOSITION_TABLE
+     * @return new options, identical to these except for the transposition table
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public MctsOptions withTranspositionTable(int transpositionTableSize) {
+        Preconditions.checkArgument(transpositionTableSize >= 0);
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * With tree reuse, the next decision of the turn starts its search from the subtree of the cards played since
+     * the previous one, instead of an empty tree. Each tree then has room for twice as many Nodes.
+     *
+     * @param treeReused true if the tree of a decision is reused by the next decision
+     * @return new options, identical to these except for the tree reuse
+     */
+    public MctsOptions withTreeReuse(boolean treeReused) {
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * With pondering, the MctsPlayer keeps searching on a background thread while the other players choose their
+     * cards, and its trees follow the cards played. Pondering implies tree reuse, and each tree then has room for
+     * four times as many Nodes.
+     *
+     * @param pondering true if the MctsPlayer searches between its decisions
+     * @return new options, identical to these except for the pondering
+     */
+    public MctsOptions withPondering(boolean pondering) {
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * @param selectionPolicy the policy choosing the children explored by the search
+     * @return new options, identical to these except for the selection policy
+     */
+    public MctsOptions withSelectionPolicy(SelectionPolicy selectionPolicy) {
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * A greedy simulation wins the trick as cheaply as possible, gives points to a partner winning the trick and
+     * discards its cheapest card otherwise. It is slower than a random one, but needs far fewer iterations to
+     * tell good cards from bad ones.
+     *
+     * @param rolloutPolicy the policy choosing the cards played by the simulations
+     * @return new options, identical to these except for the rollout policy
+     */
+    public MctsOptions withRolloutPolicy(RolloutPolicy rolloutPolicy) {
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * With several rollouts per leaf, each iteration runs its simulations one after the other from the Node it
+     * added, and the Nodes of its path get the average of their points as the score of a single simulation.
+     * The selection and the expansion are then done once for all these simulations.
+     *
+     * @param rolloutsPerLeaf the number of simulations run from the Node added by each iteration
+     * @return new options, identical to these except for the number of rollouts per leaf
+     * @throws IllegalArgumentException if rolloutsPerLeaf is smaller than 1
+     */
+    public MctsOptions withRolloutsPerLeaf(int rolloutsPerLeaf) {
+        Preconditions.checkArgument(rolloutsPerLeaf >= 1);
+        return new MctsOptions(threads, parallelism, timeBudget, determinized, transpositionTableSize, treeReused,
+                pondering, selectionPolicy, rolloutPolicy, rolloutsPerLeaf);
+    }
+
+    /**
+     * Adds to these options the ones given as a list of <key>=<value> separated by commas, with the keys of the
+     * simulated players of LocalMain : parallel, time, deal, tt, reuse, ponder, policy, c, rollout and rollouts
+     *
+     * @param optionsString the list of options
+     * @return new options, identical to these except for the given options
+     * @throws IllegalArgumentException if an option is unknown or its value is invalid, the message of the
+     * exception being this option
+     */
+    public MctsOptions withOptions(String optionsString) {
+        MctsOptions options = this;
+        String policy = null;
+        double c = Double.NaN;
+        for (String option : optionsString.split(",")) {
+            String[] keyAndValue = option.split("=");
+            String value = keyAndValue.length > 1 ? keyAndValue[1] : "";
+
+            switch (keyAndValue[0]) {
+                case "parallel":
+                    if (value.equals("root"))
+                        options = options.withParallelism(Parallelism.ROOT);
+                    else if (value.equals("tree"))
+                        options = options.withParallelism(Parallelism.TREE);
+                    else
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "deal":
+                    if (value.equals("open"))
+                        options = options.withDeterminization(false);
+                    else if (value.equals("sampled"))
+                        options = options.withDeterminization(true);
+                    else
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "tt":
+                    try {
+                        options = options.withTranspositionTable(Integer.parseInt(value));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(option);
+                    }
+                    break;
+                case "reuse":
+                    if (value.equals("true"))
+                        options = options.withTreeReuse(true);
+                    else if (value.equals("false"))
+                        options = options.withTreeReuse(false);
+                    else
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "ponder":
+                    if (value.equals("true"))
+                        options = options.withPondering(true);
+                    else if (value.equals("false"))
+                        options = options.withPondering(false);
+                    else
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "policy":
+                    if (value.equals("ucb1") || value.equals("tuned") || value.equals("puct"))
+                        policy = value;
+                    else
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "c":
+                    try {
+                        c = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(option);
+                    }
+                    if (!(c >= 0))
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "rollout":
+                    if (value.equals("random"))
+                        options = options.withRolloutPolicy(RolloutPolicy.RANDOM);
+                    else if (value.equals("greedy"))
+                        options = options.withRolloutPolicy(RolloutPolicy.GREEDY);
+                    else
+                        throw new IllegalArgumentException(option);
+                    break;
+                case "rollouts":
+                    try {
+                        options = options.withRolloutsPerLeaf(Integer.parseInt(value));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(option);
+                    }
+                    break;
+                case "time":
+                    try {
+                        options = options.withTimeBudget(Long.parseLong(value));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(option);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException(option);
+            }
+        }
+
+        if (policy != null || !Double.isNaN(c))
+            options = options.withSelectionPolicy(selectionPolicy(policy == null ? "ucb1" : policy, c));
+        return options;
+    }
+
+    /*
+     * Builds the selection policy with the given name and constant
+     *
+     * @param policy the name of the policy : ucb1, tuned or puct
+     * @param c the constant of the policy, or NaN for the default constant of the policy
+     * @return the selection policy
+     */
+    private static SelectionPolicy selectionPolicy(String policy, double c) {
+        switch (policy) {
+            case "tuned":
+                return new Ucb1TunedPolicy(Double.isNaN(c) ? Ucb1TunedPolicy.DEFAULT_C : c);
+            case "puct":
+                return new PuctPolicy(Double.isNaN(c) ? PuctPolicy.DEFAULT_C : c);
+            default:
+                return new Ucb1Policy(Double.isNaN(c) ? Ucb1Policy.DEFAULT_C : c);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "threads=" + threads + ",parallelism=" + parallelism + ",timeBudget=" + timeBudget
+                + ",determinized=" + determinized + ",transpositionTableSize=" + transpositionTableSize
+                + ",treeReused=" + treeReused + ",pondering=" + pondering + ",selectionPolicy=" + selectionPolicy
+                + ",rolloutPolicy=" + rolloutPolicy + ",rolloutsPerLeaf=" + rolloutsPerLeaf;
+    }
+}
@@ -2,39 +2,204 @@ package main.java.jass;
 
 import main.java.Preconditions;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A Player using the MCTS algorithm
  *
+ * The tree is stored in parallel primitive arrays indexed by node, and both the expansion and the
+ * simulations work directly on the packed score, card set and trick, so that an iteration does not
+ * allocate any object. With more than one thread, either every thread builds its own independent tree (root
+ * parallelization) and the statistics of the children of the roots are merged before choosing the card, or
+ * all the threads expand the same tree (tree parallelization), using a virtual loss to spread over its branches.
+ * With a time budget, the search stops when the budget is spent even if not all the iterations are done, and the
+ * trees are sized for TIME_BUDGET_ITERATIONS iterations per decision whatever the cap : once a tree is full, the
+ * iterations go on simulating from its leaves without expanding them.
+ *
+ * By default every other player is supposed to hold any card we have not seen. With determinization (information
+ * set MCTS), every iteration deals instead the unseen cards to the other players, consistently with the number of
+ * cards they still hold and with the cards they have shown not to hold (recorded by a CardTracker), and only the
+ * cards playable in this deal are selected, expanded and simulated.
+ *
+ * With tree reuse, the tree of a decision is kept, and the next decision of the turn starts from the Node reached
+ * by the cards played since, with all its statistics. With pondering, which implies tree reuse, a background
+ * thread keeps iterating on the trees between two decisions, until their roots have as many simulations as a
+ * decision gives them, and the trees descend to the cards played as soon as the tricks are updated.
+ *
  * @author Kilian Schneiter (287496)
  * @author Capucine Berger(269503)
  */
 
 public final class MctsPlayer implements Player {
 
+    /**
+     * The maximal number of indexes of a tree of a MctsPlayer (see treeCapacity), about 2 GB with every option
+     */
+    public static final long MAX_TREE_CAPACITY = 1L << 25;
+
     private final PlayerId mctsPlayer;
-    private final SplittableRandom splittableRandom;
     private final int iterations;
-    private List<Node> tree = new ArrayList<>();
+    private final long timeBudget;
+    private final boolean determinized;
+    private final boolean treeReused;
+    private final int iterationsPerDecision;
+    private final int slotsPerDecision;
+    private final Tree[] trees;
+    private final SplittableRandom[] rngs;
+    private final int[][] paths;
+    private final long[][] hands;
+    private final int[][] cardsLeft;
+    private final ForkJoinPool pool;
+    private final ForkJoinTask<?>[] searches;
+
+    private final Thread ponderer;
+    private final Object ponderLock = new Object();
+    private volatile boolean ponderingAllowed;
+    private boolean pondering; // guarded by ponderLock
+    private boolean rootsAreCurrent; // true if the trees follow the cards played, only when pondering
+
+    private final long[] visitsOfCard = new long[Long.SIZE];
+    private final long[] scoreOfCard = new long[Long.SIZE];
+
+    private final CardTracker tracker = new CardTracker();
+    private final long[] possibleCards = new long[PlayerId.COUNT];
+    private final int[] handSizes = new int[PlayerId.COUNT];
+    private long unseenCards;
+    private int cardsPlayedAtRoot;
+    private long ownHand;
 
-    private static final int MAX_SCORE = 157;
     private static final int TURN_SIZE = 9;
+    private static final int OPPONENTS = PlayerId.COUNT - 1;
+    private static final int REUSE_CAPACITY = 2;
+    private static final int PONDERING_CAPACITY = 4;
+    // The number of iterations per decision the trees are sized for when there is a time budget, whatever the cap
+    private static final int TIME_BUDGET_ITERATIONS = 1 << 16;
+    // The indexes reserved per iteration, as a Node reserves one index per playable card at its first expansion :
+    // measured at most 6 with open hands and 2.2 with sampled deals from 100 iterations on, plus the ranges of the
+    // first Nodes, which weigh more in the smallest trees (at most 11 indexes per iteration with 9 iterations)
+    private static final int OPEN_SLOTS_PER_ITERATION = 8;
+    private static final int SAMPLED_SLOTS_PER_ITERATION = 4;
+    private static final int SLOTS_OF_FIRST_NODES = 2 * TURN_SIZE * Tree.MAX_RANGE;
 
     /**
-     * Builds a new MctsPlayer with the given argument
+     * Builds a new MctsPlayer with the given argument, searching on a single thread
      *
      * @param ownId the PlayerId of the MctsPlayer
      * @param rngSeed the seed
      * @param iterations the number of iterations the algorithms will run before choosing which card to play
      */
     public MctsPlayer(PlayerId ownId, long rngSeed, int iterations) {
+        this(ownId, rngSeed, iterations, MctsOptions.DEFAULT);
+    }
+
+    /**
+     * Builds a new MctsPlayer with the given argument, building one independent tree per thread
+     *
+     * @param ownId the PlayerId of the MctsPlayer
+     * @param rngSeed the seed
+     * @param iterations the number of iterations each tree will run before choosing which card to play
+     * @param threads the number of independent trees, each one built on its own thread
+     * @throws IllegalArgumentException if there are less than 9 iterations or less than 1 thread
+     */
+    public MctsPlayer(PlayerId ownId, long rngSeed, int iterations, int threads) {
+        this(ownId, rngSeed, iterations, MctsOptions.DEFAULT.withThreads(threads));
+    }
+
+    /**
+     * Builds a new MctsPlayer with the given argument
+     *
+     * @param ownId the PlayerId of the MctsPlayer
+     * @param rngSeed the seed
+     * @param iterations the number of iterations each thread will run before choosing which card to play, at most
+     *                   if the options have a time budget
+     * @param options the options of the search
+     * @throws IllegalArgumentException if there are less than 9 iterations, or if the trees would be larger than
+     * MAX_TREE_CAPACITY (see treeCapacity)
+     */
+    public MctsPlayer(PlayerId ownId, long rngSeed, int iterations, MctsOptions options) {
         Preconditions.checkArgument(iterations >= TURN_SIZE);
+        Preconditions.checkArgument(treeCapacity(iterations, options) <= MAX_TREE_CAPACITY);
 
         mctsPlayer = ownId;
         SplittableRandom rng = new SplittableRandom(rngSeed);
-        this.splittableRandom = new SplittableRandom(rng.nextLong());
+        SplittableRandom splittableRandom = new SplittableRandom(rng.nextLong());
         this.iterations = iterations;
+        this.timeBudget = TimeUnit.MILLISECONDS.toNanos(options.timeBudget());
+        this.determinized = options.determinized();
+        this.treeReused = options.treeReused();
+
+        int threads = options.threads();
+        boolean shared = options.parallelism() == MctsOptions.Parallelism.TREE;
+        iterationsPerDecision = (int) iterationsPerDecision(iterations, options);
+        slotsPerDecision = (int) slotsPerDecision(iterations, options);
+        trees = new Tree[shared ? 1 : threads];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = new Tree((int) treeCapacity(iterations, options), shared ? threads : 1, options);
+        }
+
+        rngs = new SplittableRandom[threads];
+        paths = new int[threads][];
+        hands = new long[threads][];
+        cardsLeft = new int[threads][];
+        for (int i = 0; i < threads; i++) {
+            rngs[i] = splittableRandom.split();
+            paths[i] = new int[Tree.MAX_DEPTH];
+            hands[i] = new long[PlayerId.COUNT];
+            cardsLeft[i] = new int[PlayerId.COUNT];
+        }
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        searches = new ForkJoinTask<?>[threads];
+
+        if (options.pondering()) {
+            ponderer = new Thread(this::ponder, "MctsPlayer " + ownId + " pondering");
+            ponderer.setDaemon(true);
+            ponderer.setPriority(Thread.MIN_PRIORITY);
+            ponderer.start();
+        } else {
+            ponderer = null;
+        }
+    }
+
+    /**
+     * Gives the number of indexes of each tree of a MctsPlayer with the given iterations and options, which must
+     * not exceed MAX_TREE_CAPACITY (about 2 GB). With a time budget, it does not depend on the number of iterations.
+     *
+     * @param iterations the number of iterations of each thread
+     * @param options the options of the search
+     * @return the number of indexes of each tree
+     */
+    public static long treeCapacity(int iterations, MctsOptions options) {
+        int decisions = options.pondering() ? PONDERING_CAPACITY : options.treeReused() ? REUSE_CAPACITY : 1;
+        return decisions * slotsPerDecision(iterations, options) + 1;
+    }
+
+    /*
+     * Returns the number of iterations of a decision on a tree, the ones of all the threads iterating on it, at
+     * most TIME_BUDGET_ITERATIONS when there is a time budget
+     */
+    private static long iterationsPerDecision(int iterations, MctsOptions options) {
+        boolean shared = options.parallelism() == MctsOptions.Parallelism.TREE;
+        long iterationsPerTree = shared ? (long) options.threads() * iterations : iterations;
+        return options.timeBudget() == MctsOptions.NO_TIME_BUDGET
+                ? iterationsPerTree
+                : Math.min(iterationsPerTree, TIME_BUDGET_ITERATIONS);
+    }
+
+    /*
+     * Returns the number of indexes a decision can reserve in a tree
+     */
+    private static long slotsPerDecision(int iterations, MctsOptions options) {
+        int slotsPerIteration = options.determinized() ? SAMPLED_SLOTS_PER_ITERATION : OPEN_SLOTS_PER_ITERATION;
+        return iterationsPerDecision(iterations, options) * slotsPerIteration + SLOTS_OF_FIRST_NODES;
     }
 
     /**
@@ -46,290 +211,896 @@ public final class MctsPlayer implements Player {
      */
     @Override
     public Card cardToPlay(TurnState state, CardSet hand) {
-        if (hand.size() == 1) {
-            tree.clear();
+        if (hand.size() == 1)
             return hand.get(0);
-        } else {
-            Node padre = new Node(state, updatedUnusedCards(state, hand));
-            tree.add(padre);
 
-            for (int i = 0; i < iterations - 1; i++) {
-                List<Node> path = pathForBestNode();
-                Node recursiveParent = path.get(path.size() - 1);
-                CardSet updatedHand = hand.intersection(recursiveParent.turnState.unplayedCards());
-                Card cardToBePlayed = null;
-
-                if (!recursiveParent.unUsedCards.isEmpty()) {
-                    cardToBePlayed = getRandomCardToPlay(recursiveParent.turnState, recursiveParent.unUsedCards);
-                }
-
-                TurnState updatedState = recursiveParent.turnState;
-
-                if (cardToBePlayed != null) {
-                    updatedHand = updatedHand.remove(cardToBePlayed);
-                    updatedState = updatedState.withNewCardPlayedAndTrickCollected(cardToBePlayed);
-                }
+        stopPondering();
+        if (determinized || treeReused)
+            tracker.update(state.packedTrick());
+        for (Tree tree : trees) {
+            if (!treeReused || !tree.descend(tracker, cardsPlayedAtRoot)
+                    || !tree.hasRoot(state.packedScore(), state.packedUnplayedCards(), state.packedTrick())
+                    || !tree.hasRoomFor(slotsPerDecision))
+                tree.reset(state.packedScore(), state.packedUnplayedCards(), state.packedTrick(), mctsPlayer);
+        }
+        cardsPlayedAtRoot = tracker.cardsPlayed();
+        ownHand = hand.packed();
+        prepareDeals(state.packedUnplayedCards(), state.packedTrick(), ownHand);
 
-                Node child = new Node(updatedState, updatedUnusedCards(updatedState, updatedHand));
-                child.totalScore = getFinalScore(updatedState, updatedHand).turnPoints(currentPlayerTeam(updatedState));
-                updateAllScores(addNewNode(child, path));
+        long deadline = System.nanoTime() + timeBudget;
+        if (pool == null) {
+            search(0, deadline);
+        } else {
+            for (int i = 0; i < searches.length; i++) {
+                int worker = i;
+                searches[i] = pool.submit(() -> search(worker, deadline));
+            }
+            for (ForkJoinTask<?> search : searches) {
+                search.join();
             }
-            CardSet nodeCards = padre.children[padre.getIndexOfBestSon(0)].getNodeCards();
-            CardSet padreCards = padre.getNodeCards();
-            tree.clear();
-            return nodeCards.difference(padreCards).get(0);
         }
+
+        int bestCard = bestCard();
+        rootsAreCurrent = ponderer != null;
+        startPondering();
+        return Card.ofPacked(bestCard);
     }
 
     /*
-     * Returns a card that can be played in the state of a turn, considering who is playing
+     * Runs the iterations of a thread on its tree, until they are all done or the time budget is spent
      *
-     * @param state the current TurnState
-     * @param playableCards the CardSet of the cards that can be played by other players
-     * @param hand the CardSet containing the hand of the MctsPlayer
-     * @return the Card that can be played
+     * @param worker the index of the thread
+     * @param deadline the value of System.nanoTime() after which no iteration is started, if there is a time budget
      */
-    private Card getCardToPlay(TurnState state, CardSet playableCards, CardSet hand) {
-        Card cardToBePlayed;
-        if (state.nextPlayer() != mctsPlayer) {
-            if (!playableCards.isEmpty()) {
-                cardToBePlayed = getRandomCardToPlay(state, playableCards);
-            } else {
-                throw new IllegalStateException("No cards left to play");
-            }
-        } else {
-            cardToBePlayed = getRandomCardToPlay(state, hand);
+    private void search(int worker, long deadline) {
+        Tree tree = trees[worker % trees.length];
+        for (int i = 0; i < iterations; i++) {
+            if (determinized)
+                deal(hands[worker], cardsLeft[worker], rngs[worker]);
+            tree.iterate(paths[worker], hands[worker], rngs[worker]);
+            if (timeBudget != MctsOptions.NO_TIME_BUDGET && System.nanoTime() - deadline >= 0)
+                break;
         }
-
-        return cardToBePlayed;
     }
 
-    /*
-     * @param state the current TurnState
-     * @return the team of the player that is currently playing
+    /**
+     * Forgets what the other players have shown not to hold, as the cards of a new turn are dealt
+     *
+     * @param trump the colour of the trump
      */
-    private TeamId currentPlayerTeam(TurnState state) {
-        return PlayerId.ALL.get((state.nextPlayer().ordinal() + 3) % PlayerId.COUNT).team();
+    @Override
+    public void setTrump(Card.Color trump) {
+        stopPondering();
+        rootsAreCurrent = false;
+        tracker.reset();
     }
 
-    /*
-     * Finishes randomly the the turn and returns the Score of both teams
+    /**
+     * Records the cards the players have shown not to hold with the new cards of the trick. When pondering,
+     * the trees also descend to the cards played, and the pondering goes on from there.
      *
-     * @param turnState the current TurnState
-     * @param hand the CardSet containing the hand of the MctsPlayer
-     * @return the resulting Score
+     * @param newTrick the updated trick
      */
-    private Score getFinalScore(TurnState turnState, CardSet hand) {
-        TurnState copy = TurnState.ofPackedComponents(turnState.packedScore(), turnState.packedUnplayedCards(), turnState.packedTrick());
+    @Override
+    public void updateTrick(Trick newTrick) {
+        stopPondering();
+        tracker.update(newTrick.packed());
+        if (!rootsAreCurrent)
+            return;
 
-        while(!copy.unplayedCards().isEmpty()) {
-            if (copy.trick().isFull()) {
-                copy = copy.withTrickCollected();
-            }
-            Card cardToPlay = getCardToPlay(copy, getPlayableCards(copy, hand), hand);
-            copy = copy.withNewCardPlayed(cardToPlay);
-            hand = hand.remove(cardToPlay);
+        for (Tree tree : trees) {
+            rootsAreCurrent &= tree.descend(tracker, cardsPlayedAtRoot);
         }
+        cardsPlayedAtRoot = tracker.cardsPlayed();
+        startPondering();
+    }
 
-        return copy.withTrickCollected().score();
+    /**
+     * Ends the pondering thread and shuts down the threads of the searches, as the game is over
+     *
+     * @param winningTeam the team which won the game
+     */
+    @Override
+    public void setWinningTeam(TeamId winningTeam) {
+        stopPondering();
+        if (ponderer != null)
+            ponderer.interrupt();
+        if (pool != null)
+            pool.shutdown();
     }
 
-    /*
-     * Finds the best Node to get a child and returns the path to it, from the top of the tree
+    /**
+     * Gives the events needed by the MctsPlayer : the trump and the tricks when it follows the cards played, to
+     * sample the deals or to reuse its trees, and the end of the game when it has threads to stop (pondering or
+     * searches on several threads)
      *
-     * @return a List containing the Nodes we went through to get to the best Node
+     * @return the events the MctsPlayer needs
      */
-    private List<Node> pathForBestNode() {
-        Node bestNode = tree.get(0);
-        List<Node> path = new ArrayList<>();
-        path.add(bestNode);
+    @Override
+    public Set<Event> neededEvents() {
+        Set<Event> events = EnumSet.noneOf(Event.class);
+        if (determinized || treeReused)
+            events.addAll(EnumSet.of(Event.TRUMP, Event.TRICK));
+        if (ponderer != null || pool != null)
+            events.add(Event.WINNING_TEAM);
+        return events;
+    }
 
-        while(bestNode.unUsedCards.isEmpty() && !bestNode.turnState.trick().isLast()) {
-            bestNode = bestNode.children[bestNode.getIndexOfBestSon(Node.C)];
-            path.add(bestNode);
+    /*
+     * Lets the pondering thread iterate on the trees, if they are at the current state of the turn and the turn
+     * is not over
+     */
+    private void startPondering() {
+        Tree tree = trees[0];
+        if (!rootsAreCurrent || tree.rootIsTerminal())
+            return;
+
+        synchronized (ponderLock) {
+            if (pondering)
+                return;
+            ownHand = PackedCardSet.intersection(ownHand, tree.unplayedAtRoot());
+            prepareDeals(tree.unplayedAtRoot(), tree.trickAtRoot(), ownHand);
+            ponderingAllowed = true;
+            ponderLock.notifyAll();
         }
+    }
 
-        return path;
+    /*
+     * Stops the pondering thread, and waits for the end of its current iteration
+     */
+    private void stopPondering() {
+        synchronized (ponderLock) {
+            ponderingAllowed = false;
+            boolean interrupted = false;
+            while (pondering) {
+                try {
+                    ponderLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
     }
 
     /*
-     * Returns a random Card in a CardSet, considering a TurnState.
-     * Or null if there is no cards left to play in the turn.
-     *
-     * @param turnState the current TurnState
-     * @param cardSet the CardSet in which we want to get a Card
-     * @return the random Card to be played
+     * The loop of the pondering thread : waits until the pondering is allowed, then runs iterations on the trees,
+     * the ones of every thread of the search in turn, until the pondering is stopped, the trees would have no
+     * room left for the Nodes of the next decision, or a root has as many simulations as the iterations of a
+     * decision give it (without this bound, a turn fully expanded would be pondered on until its totals
+     * overflow). The thread ends when it is interrupted while waiting.
      */
-    private Card getRandomCardToPlay(TurnState turnState, CardSet cardSet) {
-        int bound = turnState.trick().playableCards(cardSet).size();
+    private void ponder() {
+        int worker = 0;
+        while (true) {
+            synchronized (ponderLock) {
+                while (!ponderingAllowed) {
+                    try {
+                        ponderLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                pondering = true;
+            }
 
-        if (bound > 0)
-            return turnState.trick().playableCards(cardSet).get(splittableRandom.nextInt(bound));
-        else
-            return null;
+            while (ponderingAllowed) {
+                Tree tree = trees[worker % trees.length];
+                if (!tree.hasRoomFor(slotsPerDecision + Tree.MAX_RANGE)
+                        || tree.rootVisits() >= iterationsPerDecision) {
+                    ponderingAllowed = false;
+                    break;
+                }
+                if (determinized)
+                    deal(hands[worker], cardsLeft[worker], rngs[worker]);
+                tree.iterate(paths[worker], hands[worker], rngs[worker]);
+                worker = (worker + 1) % rngs.length;
+            }
+
+            synchronized (ponderLock) {
+                pondering = false;
+                ponderLock.notifyAll();
+            }
+        }
     }
 
     /*
-     * Adds a new Node at the end of the path
+     * Computes the cards we have not seen, the ones each other player can hold and the number of cards each player
+     * still holds, and gives to every thread the sets of cards the players can hold when the deals are not sampled.
      *
-     * @param nodeChild the Node to be added
-     * @param path the List of Nodes that we went through to get the best one
-     * @return a List of Node containing the path with the child added
+     * @param pkUnplayedCards the packed unplayed cards
+     * @param pkTrick the packed trick, which is not PackedTrick.INVALID
+     * @param pkHand the packed hand of the MctsPlayer
      */
-    private List<Node> addNewNode(Node nodeChild, List<Node> path) {
-        path.get(path.size() - 1).addChild(nodeChild);
+    private void prepareDeals(long pkUnplayedCards, int pkTrick, long pkHand) {
+        unseenCards = PackedCardSet.difference(pkUnplayedCards, pkHand);
 
-        for (Node n : path) {
-            n.numberOfTurnsSimulated++;
+        int firstPlayer = PackedTrick.player(pkTrick, 0).ordinal();
+        int trickSize = PackedTrick.size(pkTrick);
+        boolean ownHasPlayed = (mctsPlayer.ordinal() - firstPlayer + PlayerId.COUNT) % PlayerId.COUNT < trickSize;
+        int cardsBeforeTrick = PackedCardSet.size(pkHand) + (ownHasPlayed ? 1 : 0);
+        for (PlayerId player : PlayerId.ALL) {
+            boolean hasPlayed = (player.ordinal() - firstPlayer + PlayerId.COUNT) % PlayerId.COUNT < trickSize;
+            handSizes[player.ordinal()] = hasPlayed ? cardsBeforeTrick - 1 : cardsBeforeTrick;
+            possibleCards[player.ordinal()] = PackedCardSet.intersection(tracker.possibleCards(player), unseenCards);
         }
-        path.add(nodeChild);
+        if (!isDealable(unseenCards, handSizes))
+            Arrays.fill(possibleCards, unseenCards);
 
-        return path;
+        for (long[] workerHands : hands) {
+            Arrays.fill(workerHands, unseenCards);
+            workerHands[mctsPlayer.ordinal()] = pkHand;
+        }
     }
 
     /*
-     * Returns the cards that can be played by other players (not Mcts)
+     * Deals randomly the unseen cards to the other players, each of them getting as many cards as it still holds
+     * and only cards it can hold. The cards are dealt one after the other, each one to a player chosen with a
+     * probability proportional to the number of cards it still has to receive, among the players which can hold
+     * it and after which the remaining cards can still be dealt.
      *
-     * @param turnState the current TurnState
-     * @param hand the CardSet containing the hand of the MctsPlayer
-     * @return the CardSet containing the cards that can be played by other players
+     * @param hands the hands of the players, in which the deal is written
+     * @param cardsLeft the array in which the number of cards each player still has to receive is stored
+     * @param rng the random used to deal the cards
      */
-    private CardSet getPlayableCards(TurnState turnState, CardSet hand) {
-        return turnState.unplayedCards().difference(hand);
+    private void deal(long[] hands, int[] cardsLeft, SplittableRandom rng) {
+        System.arraycopy(handSizes, 0, cardsLeft, 0, PlayerId.COUNT);
+        for (int i = 1; i < PlayerId.COUNT; i++) {
+            hands[(mctsPlayer.ordinal() + i) % PlayerId.COUNT] = PackedCardSet.EMPTY;
+        }
+
+        long remaining = unseenCards;
+        while (!PackedCardSet.isEmpty(remaining)) {
+            int pkCard = PackedCardSet.get(remaining, rng.nextInt(PackedCardSet.size(remaining)));
+            remaining = PackedCardSet.remove(remaining, pkCard);
+
+            int candidates = 0;
+            int totalWeight = 0;
+            for (int i = 1; i < PlayerId.COUNT; i++) {
+                int player = (mctsPlayer.ordinal() + i) % PlayerId.COUNT;
+                if (cardsLeft[player] > 0 && PackedCardSet.contains(possibleCards[player], pkCard)) {
+                    cardsLeft[player]--;
+                    if (isDealable(remaining, cardsLeft)) {
+                        candidates |= 1 << player;
+                        totalWeight += cardsLeft[player] + 1;
+                    }
+                    cardsLeft[player]++;
+                }
+            }
+
+            int weight = rng.nextInt(totalWeight);
+            for (int player = 0; player < PlayerId.COUNT; player++) {
+                if ((candidates >> player & 1) == 1 && (weight -= cardsLeft[player]) < 0) {
+                    hands[player] = PackedCardSet.add(hands[player], pkCard);
+                    cardsLeft[player]--;
+                    break;
+                }
+            }
+        }
     }
 
-    /* Updates all the scores of a list of Node
+    /*
+     * Checks whether the given cards can be dealt to the other players, each player receiving the given number of
+     * cards and only cards it can hold. By Hall's theorem, they can if for every subset of the other players, the
+     * cards which only these players can hold are not more numerous than the cards these players receive.
      *
-     * @param nList the List of all Nodes that we want to update the score
+     * @param cards the packed cards to deal
+     * @param cardsLeft the number of cards each player receives, indexed by the ordinal of its PlayerId
+     * @return true if the cards can be dealt
      */
-    private void updateAllScores(List<Node> nList) {
-        for(int i = nList.size() - 2 ; i >= 0; i--) {
-            nList.get(i).updateScore(nList.get(nList.size() - 1));
+    private boolean isDealable(long cards, int[] cardsLeft) {
+        for (int subset = 0; subset < 1 << OPPONENTS; subset++) {
+            long outside = PackedCardSet.EMPTY;
+            int capacity = 0;
+            for (int i = 0; i < OPPONENTS; i++) {
+                int player = (mctsPlayer.ordinal() + i + 1) % PlayerId.COUNT;
+                if ((subset >> i & 1) == 1)
+                    capacity += cardsLeft[player];
+                else
+                    outside = PackedCardSet.union(outside, possibleCards[player]);
+            }
+            if (PackedCardSet.size(PackedCardSet.difference(cards, outside)) > capacity)
+                return false;
         }
+
+        return true;
     }
 
     /*
-     * Returns the unUsedCards for a new Node
+     * Merges the statistics of the children of every root, and returns the card with the best average score
      *
-     * @param state the current TurnState
-     * @param hand the CardSet containing the hand of the MctsPlayer
-     * @return a CardSet containing all the cards that can be played right after this Node
+     * @return the packed card to play
      */
-    private CardSet updatedUnusedCards(TurnState state, CardSet hand) {
-        CardSet possibleCards;
+    private int bestCard() {
+        long candidates = PackedCardSet.EMPTY;
+        for (Tree tree : trees) {
+            candidates = PackedCardSet.union(candidates, tree.addRootStatistics(visitsOfCard, scoreOfCard));
+        }
 
-        if (state.nextPlayer() == mctsPlayer) {
-            possibleCards = state.trick().playableCards(hand);
-        } else {
-            possibleCards = getPlayableCards(state, hand);
+        int bestCard = PackedCardSet.get(candidates, 0);
+        double bestAverage = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < PackedCardSet.size(candidates); i++) {
+            int pkCard = PackedCardSet.get(candidates, i);
+            double average = (double) scoreOfCard[pkCard] / visitsOfCard[pkCard];
+            if (average > bestAverage) {
+                bestAverage = average;
+                bestCard = pkCard;
+            }
+            visitsOfCard[pkCard] = 0;
+            scoreOfCard[pkCard] = 0;
         }
 
-        return possibleCards;
+        return bestCard;
     }
 
-    private static final class Node {
+    /*
+     * The tree of the algorithm. Node i is described by the i-th entry of every array, the root is the node 0
+     * and the children of a node occupy a contiguous range of indexes, starting at firstChild. The range is reserved
+     * at the first expansion of the Node, with one index per card playable in this iteration (rangeSize), so that
+     * with open hands, whose playable cards never change, it holds all the children of the Node. With sampled
+     * deals, the cards which first become playable in another deal are added in chunks of CHUNK_SIZE contiguous
+     * indexes, the first one linked to the range and each one to the next by nextChunk (an entry of nextChunk
+     * describes the range or the chunk starting at its index, not the Node at this index). The children are written
+     * in the order of their expansion, so that the first children of the Node are the ones with an expanded card,
+     * and a chunk is reserved when its first index is needed. Each Node records the card played to reach it, and
+     * the cards already expanded from a Node are the bits of a single mask.
+     *
+     * Several threads can iterate on the same tree : the cards to expand are claimed with a compare-and-set, each
+     * claim giving the next index of the children, and the statistics are updated atomically. The thread claiming
+     * the first card or the first index of a chunk reserves the range or the chunk and initializes it before
+     * linking it, and the threads claiming the other indexes wait for this link. The number of simulations of a
+     * child is written last, and a child with no simulation is not written yet. A Node counts a simulation as soon
+     * as it is selected (virtual loss), so that the other threads see it as less promising until its score is
+     * added.
+     *
+     * Every iteration is given the cards each player holds, and only the children whose card is playable with
+     * these hands can be selected. When the hands are sampled, a child is not playable at every visit of its
+     * parent, so the exploration term of a child counts the visits of its parent in which it was playable
+     * (its availability) instead of all of them.
+     *
+     * With a transposition table, the Nodes at the beginning of a trick also share their statistics with the
+     * Nodes of the same state reached through other orders of cards, and the average score of a child used in
+     * its value of V(s) is the one of its state instead of its own one. The table keeps no squares, so the variance
+     * of the scores of a child always comes from its own simulations, its own average included.
+     *
+     * To reuse a subtree, its Nodes are moved to the beginning of the arrays in the order of their indexes, the
+     * root of the subtree becoming the root, and the ranges and chunks of children stay contiguous. As they are
+     * always reserved after their parent is written, hence at greater indexes, no Node of the subtree is
+     * overwritten before being moved. The Nodes are not expanded anymore when the tree has no room left for a
+     * range per thread, so that reserving a range never fails, which is asserted. Without a time budget, the trees
+     * are sized from the indexes measured per iteration (see slotsPerDecision) so that this never happens, which
+     * is asserted too.
+     */
+    private static final class Tree {
+
+        private final byte[] card; // the packed card played to reach the Node
+        private final long[] unplayed;
+        private final int[] trick;
+        private final long[] score;
+        private final AtomicLongArray expanded;
+        private final AtomicIntegerArray visits; // N(n)
+        private final AtomicLongArray totalScore; // S(n)
+        private final AtomicLongArray totalSquare;
+        private final AtomicIntegerArray available;
+        private final AtomicIntegerArray firstChild;
+        private final AtomicIntegerArray nextChunk;
+        private final byte[] rangeSize; // the number of indexes of the range of the children
+        private final AtomicInteger size = new AtomicInteger();
+        private final int expansionLimit;
+        private final boolean sizedForTimeBudget;
+        private final long[] key;
+        private final int[] entry;
+        private final TranspositionTable table;
+        private final int[] newIndex;
+        private final SelectionPolicy policy;
+        private final MctsOptions.RolloutPolicy rolloutPolicy;
+        private final int rolloutsPerLeaf;
+        private final boolean determinized;
 
-        private final TurnState turnState;
-        private final Node[] children;
-        private CardSet unUsedCards;
-        private int totalScore; // S(n)
-        private int numberOfTurnsSimulated; // N(n)
+        private PlayerId ownId;
 
-        private static final int C = 40;
-        private static final int MAX_CHILDREN_SIZE = Jass.HAND_SIZE * PlayerId.COUNT;
+        private static final int ROOT = 0;
+        private static final int NONE = -1;
+        private static final int FULL = -2;
+        // The number of contiguous indexes reserved at once for the children of a Node whose cards first become
+        // playable after its range is reserved, in another sampled deal
+        private static final int CHUNK_SIZE = 2;
+        // The largest number of cards a player can play, when the other players can hold any card we have not seen
+        private static final int MAX_RANGE = OPPONENTS * Jass.HAND_SIZE;
+        private static final int MAX_DEPTH = Jass.HAND_SIZE * PlayerId.COUNT + 1;
 
-        private Node(TurnState turnState, CardSet unUsedCards) {
-            this.turnState = turnState;
-            this.unUsedCards = unUsedCards;
-            children = new Node[MAX_CHILDREN_SIZE];
-            totalScore = 0;
-            numberOfTurnsSimulated = 1;
+        private Tree(int capacity, int threads, MctsOptions options) {
+            expansionLimit = capacity - threads * MAX_RANGE;
+            sizedForTimeBudget = options.timeBudget() != MctsOptions.NO_TIME_BUDGET;
+            card = new byte[capacity];
+            unplayed = new long[capacity];
+            trick = new int[capacity];
+            score = new long[capacity];
+            expanded = new AtomicLongArray(capacity);
+            visits = new AtomicIntegerArray(capacity);
+            totalScore = new AtomicLongArray(capacity);
+            determinized = options.determinized();
+            policy = options.selectionPolicy();
+            totalSquare = policy.usesSquares() ? new AtomicLongArray(capacity) : null;
+            available = determinized ? new AtomicIntegerArray(capacity) : null;
+            firstChild = new AtomicIntegerArray(capacity);
+            nextChunk = new AtomicIntegerArray(capacity);
+            rangeSize = new byte[capacity];
+            table = options.transpositionTableSize() == MctsOptions.NO_TRANSPOSITION_TABLE
+                    ? null
+                    : new TranspositionTable(options.transpositionTableSize());
+            key = table == null ? null : new long[capacity];
+            entry = table == null ? null : new int[capacity];
+            newIndex = options.treeReused() ? new int[capacity] : null;
+            rolloutPolicy = options.rolloutPolicy();
+            rolloutsPerLeaf = options.rolloutsPerLeaf();
         }
 
         /*
-         * Adds a child to a Node
+         * Empties the tree and puts a root with the given state in it
          *
-         * @param child the node to add
+         * @param pkScore the packed score of the root
+         * @param pkUnplayedCards the packed unplayed cards of the root
+         * @param pkTrick the packed trick of the root
+         * @param ownId the PlayerId of the MctsPlayer
          */
-        private void addChild (Node child) {
-            boolean childAdded = false;
-            for (int i = 0; i < children.length; i++) {
-                if (children[i] == null && !childAdded) {
-                    children[i] = child;
-                    CardSet cardToDelete = child.getNodeCards().difference(getNodeCards());
-                    unUsedCards = unUsedCards.difference(cardToDelete);
-                    childAdded = true;
+        private void reset(long pkScore, long pkUnplayedCards, int pkTrick, PlayerId ownId) {
+            this.ownId = ownId;
+            size.set(1);
+            if (table != null)
+                table.clear();
+            addNode(ROOT, PackedCard.INVALID, pkScore, pkUnplayedCards, pkTrick, 0);
+        }
+
+        /*
+         * Keeps only the subtree of the Node reached from the root by the cards played since the root, which
+         * becomes the new root, if this Node exists
+         *
+         * @param tracker the tracker of the cards played in the turn
+         * @param cardsPlayedAtRoot the number of cards played in the turn at the root
+         * @return true if the subtree is kept, false if the tree is left as it is
+         */
+        private boolean descend(CardTracker tracker, int cardsPlayedAtRoot) {
+            if (size.get() == 0 || tracker.cardsPlayed() < cardsPlayedAtRoot)
+                return false;
+
+            int node = ROOT;
+            for (int i = cardsPlayedAtRoot; i < tracker.cardsPlayed() && node != NONE; i++) {
+                node = child(node, tracker.playedCard(i));
+            }
+            if (node == NONE)
+                return false;
+
+            if (node != ROOT)
+                compact(node);
+            return true;
+        }
+
+        /*
+         * Returns true if the root has the given packed score, unplayed cards and trick
+         */
+        private boolean hasRoot(long pkScore, long pkUnplayedCards, int pkTrick) {
+            return score[ROOT] == pkScore && unplayed[ROOT] == pkUnplayedCards && trick[ROOT] == pkTrick;
+        }
+
+        private long unplayedAtRoot() {
+            return unplayed[ROOT];
+        }
+
+        private int trickAtRoot() {
+            return trick[ROOT];
+        }
+
+        private int rootVisits() {
+            return visits.get(ROOT);
+        }
+
+        private boolean rootIsTerminal() {
+            return trick[ROOT] == PackedTrick.INVALID;
+        }
+
+        /*
+         * Returns true if the given number of indexes can still be reserved in the tree
+         */
+        private boolean hasRoomFor(int nodes) {
+            return size.get() + nodes <= unplayed.length;
+        }
+
+        /*
+         * Returns true if every thread iterating on the tree can still reserve a range of children, the tree not
+         * being full, which is asserted when the tree is not sized for a time budget
+         */
+        private boolean canExpand() {
+            boolean canExpand = size.get() <= expansionLimit;
+            assert canExpand || sizedForTimeBudget : "the tree of the MctsPlayer is full";
+            return canExpand;
+        }
+
+        /*
+         * Moves the subtree of the given Node to the beginning of the arrays, the Node becoming the root
+         */
+        private void compact(int newRoot) {
+            int end = size.get();
+            Arrays.fill(newIndex, newRoot, end, NONE);
+            newIndex[newRoot] = ROOT;
+            int kept = 1;
+            for (int node = newRoot; node < end; node++) {
+                if (newIndex[node] == NONE)
+                    continue;
+                if (node != newRoot)
+                    newIndex[node] = kept++;
+                int first = firstChild.get(node);
+                if (first < 0)
+                    continue;
+                Arrays.fill(newIndex, first, first + rangeSize[node], first);
+                for (int chunk = nextChunk.get(first); chunk >= 0; chunk = nextChunk.get(chunk)) {
+                    Arrays.fill(newIndex, chunk, chunk + CHUNK_SIZE, chunk);
+                }
+            }
+
+            for (int node = newRoot; node < end; node++) {
+                int index = newIndex[node];
+                if (index == NONE)
+                    continue;
+
+                card[index] = card[node];
+                unplayed[index] = unplayed[node];
+                trick[index] = trick[node];
+                score[index] = score[node];
+                rangeSize[index] = rangeSize[node];
+                expanded.set(index, expanded.get(node));
+                visits.set(index, visits.get(node));
+                totalScore.set(index, totalScore.get(node));
+                if (totalSquare != null)
+                    totalSquare.set(index, totalSquare.get(node));
+                if (available != null)
+                    available.set(index, available.get(node));
+                firstChild.set(index, firstChild.get(node) < 0 ? firstChild.get(node) : newIndex[firstChild.get(node)]);
+                nextChunk.set(index, nextChunk.get(node) < 0 ? nextChunk.get(node) : newIndex[nextChunk.get(node)]);
+                if (table != null) {
+                    key[index] = key[node];
+                    entry[index] = entry[node];
                 }
             }
+            size.set(kept);
         }
 
         /*
-         * Computes the value of V(s)
+         * Returns the child of the given Node reached by playing the given card, or NONE if it does not exist
+         */
+        private int child(int node, int pkCard) {
+            int children = children(node);
+            int child = firstChild.get(node);
+            for (int k = 0; k < children && child >= 0; child = nextChild(node, child, ++k)) {
+                if (visits.get(child) > 0 && card[child] == pkCard)
+                    return child;
+            }
+
+            return NONE;
+        }
+
+        /*
+         * Runs one iteration of the algorithm : selection, expansion, simulation and update of the scores
          *
-         * @param index the index of the child
-         * @param constant the constant
-         * @return double, the value of V(s)
+         * @param path the array in which the Nodes we go through are stored, owned by the calling thread
+         * @param hands the packed sets of the cards each player holds in this iteration, indexed by the ordinal
+         *              of its PlayerId
+         * @param rng the random used for the expansion and the simulation, owned by the calling thread
          */
-        private double valueOfV (int index, int constant) {
-            if (children[index] == null) {
-                return 0;
-            } else {
-                if (children[index].numberOfTurnsSimulated > 0)
-                    return ((double)children[index].totalScore / (double)children[index].numberOfTurnsSimulated) +
-                            constant * Math.sqrt(2 * Math.log((double)numberOfTurnsSimulated)
-                                    / (double)children[index].numberOfTurnsSimulated);
-                else
-                    return Double.POSITIVE_INFINITY;
+        private void iterate(int[] path, long[] hands, SplittableRandom rng) {
+            int depth = 0;
+            int node = ROOT;
+            path[depth++] = node;
+            visits.incrementAndGet(node);
+
+            while (true) {
+                long playable = playableCards(node, hands);
+                if (canExpand() && !PackedCardSet.isEmpty(PackedCardSet.difference(playable, expanded.get(node)))) {
+                    int child = expand(node, playable, rng);
+                    if (child != NONE) {
+                        path[depth++] = child;
+                        break;
+                    }
+                }
+
+                int child = bestChild(node, playable);
+                if (child == NONE)
+                    break;
+                node = child;
+                path[depth++] = node;
+                visits.incrementAndGet(node);
+            }
+
+            node = path[depth - 1];
+            updateAllScores(path, depth, MctsRollout.averageFinalScore(score[node], unplayed[node], trick[node],
+                    hands, rolloutPolicy, rolloutsPerLeaf, rng));
+        }
+
+        /*
+         * Adds the number of simulations and the total score of every child of the root to the entry of the
+         * card leading to it
+         *
+         * @param visitsOfCard the number of simulations, indexed by packed card
+         * @param scoreOfCard the total score, indexed by packed card
+         * @return the packed set of the cards leading to a child of the root
+         */
+        private long addRootStatistics(long[] visitsOfCard, long[] scoreOfCard) {
+            long cards = PackedCardSet.EMPTY;
+            int children = children(ROOT);
+            int child = firstChild.get(ROOT);
+            for (int k = 0; k < children && child >= 0; child = nextChild(ROOT, child, ++k)) {
+                visitsOfCard[card[child]] += visits.get(child);
+                scoreOfCard[card[child]] += totalScore.get(child);
+                cards = PackedCardSet.add(cards, card[child]);
+            }
+
+            return cards;
+        }
+
+        /*
+         * Writes a new Node with no card expanded yet at the given index, its number of simulations last
+         *
+         * @param node the index of the new Node
+         * @param pkCard the packed card played to reach the Node, or PackedCard.INVALID for the root
+         * @param initialVisits the number of simulations already counted for the Node
+         */
+        private void addNode(int node, int pkCard, long pkScore, long pkUnplayedCards, int pkTrick,
+                             int initialVisits) {
+            card[node] = (byte) pkCard;
+            unplayed[node] = pkUnplayedCards;
+            trick[node] = pkTrick;
+            score[node] = pkScore;
+            expanded.set(node, PackedCardSet.EMPTY);
+            totalScore.set(node, 0);
+            if (totalSquare != null)
+                totalSquare.set(node, 0);
+            if (available != null)
+                available.set(node, 1);
+            if (table != null) {
+                boolean shared = pkTrick == PackedTrick.INVALID || PackedTrick.isEmpty(pkTrick);
+                key[node] = shared ? TranspositionTable.key(pkScore, pkUnplayedCards, pkTrick) : 0;
+                entry[node] = shared ? table.entry(key[node]) : NONE;
             }
+            firstChild.set(node, NONE);
+            visits.set(node, initialVisits);
         }
 
         /*
-         * Computed the best Node to add a new Node to
+         * Reserves the given number of contiguous indexes at the end of the arrays for children, and marks them
+         * as not written and not linked to a next chunk
          *
-         * @param c the constant, usually 40 for this project
-         * @return the index of the best node
+         * @return the first reserved index, or FULL if the tree has not enough room left
          */
-        private int getIndexOfBestSon(int c) {
-            int index = 0;
-            double maxValueOfV = 0;
-
-            for (int i = 0; i < children.length; i++) {
-                if (valueOfV(i, c) > maxValueOfV) {
-                    maxValueOfV = valueOfV(i, c);
-                    index = i;
+        private int allocate(int slots) {
+            int first;
+            do {
+                first = size.get();
+                if (first + slots > unplayed.length) {
+                    assert false : "the tree of the MctsPlayer is full";
+                    return FULL;
                 }
+            } while (!size.compareAndSet(first, first + slots));
+
+            for (int child = first; child < first + slots; child++) {
+                visits.set(child, 0);
+                firstChild.set(child, NONE);
+                nextChunk.set(child, NONE);
+            }
+            return first;
+        }
+
+        /*
+         * Returns the index of the k-th expanded child of the given Node, whose card was just claimed. The claim
+         * of the first card reserves the range of the children, with one index per card playable in its
+         * iteration, and the claim of the first index of a chunk reserves the chunk and links it. The other claims
+         * wait for the link to the range or the chunk of their index.
+         *
+         * @param playable the packed cards playable from the Node in the iteration of the claim
+         * @return the index of the child, or NONE if the tree is full
+         */
+        private int indexOfChild(int parent, int k, long playable) {
+            if (k == 0) {
+                int slots = PackedCardSet.size(playable);
+                int first = allocate(slots);
+                rangeSize[parent] = (byte) slots;
+                firstChild.set(parent, first);
+                return first < 0 ? NONE : first;
+            }
+
+            int first = awaitLink(firstChild, parent);
+            if (first < 0)
+                return NONE;
+            if (k < rangeSize[parent])
+                return first + k;
+
+            int previous = first;
+            for (int i = 0; i < (k - rangeSize[parent]) / CHUNK_SIZE && previous >= 0; i++) {
+                previous = awaitLink(nextChunk, previous);
+            }
+            if (previous < 0)
+                return NONE;
+            int offset = (k - rangeSize[parent]) % CHUNK_SIZE;
+            if (offset != 0) {
+                int chunk = awaitLink(nextChunk, previous);
+                return chunk < 0 ? NONE : chunk + offset;
+            }
+
+            int chunk = allocate(CHUNK_SIZE);
+            nextChunk.set(previous, chunk);
+            return chunk < 0 ? NONE : chunk;
+        }
+
+        /*
+         * Returns the value of the given link once it is set by the thread reserving the range or the chunk it
+         * points to, either its first index or FULL
+         */
+        private static int awaitLink(AtomicIntegerArray links, int index) {
+            int link;
+            while ((link = links.get(index)) == NONE) {
+                Thread.yield();
+            }
+            return link;
+        }
+
+        /*
+         * Returns the index of the k-th expanded child of the given Node given the index of its (k - 1)-th one,
+         * following the link to the next chunk at the end of the range or of a chunk. The result is negative if
+         * the chunk is not linked yet.
+         */
+        private int nextChild(int node, int child, int k) {
+            int extra = k - rangeSize[node];
+            if (extra < 0 || extra % CHUNK_SIZE != 0)
+                return child + 1;
+
+            return nextChunk.get(extra == 0 ? firstChild.get(node) : child + 1 - CHUNK_SIZE);
+        }
+
+        /*
+         * Plays a random playable card of the given Node which is not expanded yet, and adds the resulting Node
+         * as its child at the next index of its children
+         *
+         * @param playable the packed cards playable from the Node in this iteration
+         * @return the index of the child, or NONE if all the playable cards of the Node are already expanded or
+         * if the tree has no room left for it
+         */
+        private int expand(int parent, long playable, SplittableRandom rng) {
+            long cards;
+            int pkCard;
+            do {
+                cards = expanded.get(parent);
+                long untried = PackedCardSet.difference(playable, cards);
+                if (PackedCardSet.isEmpty(untried))
+                    return NONE;
+                pkCard = PackedCardSet.get(untried, rng.nextInt(PackedCardSet.size(untried)));
+            } while (!expanded.compareAndSet(parent, cards, PackedCardSet.add(cards, pkCard)));
+            int child = indexOfChild(parent, PackedCardSet.size(cards), playable);
+            if (child == NONE)
+                return NONE;
+
+            long pkScore = score[parent];
+            int pkTrick = PackedTrick.withAddedCard(trick[parent], pkCard);
+            if (PackedTrick.isFull(pkTrick)) {
+                pkScore = PackedScore.withAdditionalTrick(pkScore, PackedTrick.winningPlayer(pkTrick).team(),
+                        PackedTrick.points(pkTrick));
+                pkTrick = PackedTrick.nextEmpty(pkTrick);
             }
 
-            return index;
+            addNode(child, pkCard, pkScore, PackedCardSet.remove(unplayed[parent], pkCard), pkTrick, 1);
+            return child;
         }
 
         /*
-         * Checks if two Nodes are from the same team
+         * Adds the points of the simulated turn to every Node of the path, from the point of view of the team
+         * which played the card leading to the Node, and to the entries of their states in the transposition
+         * table. The simulation was already counted in the Nodes during the selection.
          *
-         * @return true if they are of the same team
+         * @param path the Nodes we went through
+         * @param depth the number of Nodes in the path
+         * @param pkScore the packed score at the end of the simulated turn
          */
-        private boolean areNodesFromTheSameTeam(Node node) {
-            return turnState.trick().player(turnState.trick().size()) == node.turnState.trick().player(node.turnState.trick().size());
+        private void updateAllScores(int[] path, int depth, long pkScore) {
+            totalScore.addAndGet(ROOT, PackedScore.turnPoints(pkScore, ownId.team()));
+
+            for (int i = 1; i < depth; i++) {
+                TeamId team = nextPlayer(trick[path[i - 1]]).team();
+                int points = PackedScore.turnPoints(pkScore, team);
+                totalScore.addAndGet(path[i], points);
+                if (totalSquare != null)
+                    totalSquare.addAndGet(path[i], (long) points * points);
+                if (table != null && entry[path[i]] != NONE)
+                    table.add(entry[path[i]], key[path[i]], pkScore);
+            }
         }
 
         /*
-         * Updates, according to the team, the score of the Node, by adding the score of its child
+         * Computes the child with the best value of V(s) given by the selection policy among the ones whose card
+         * is playable, and counts the availability of these children when the hands are sampled. The playable cards
+         * have the same prior probability.
          *
-         * @param child the child of the Node
+         * @param node the index of the parent
+         * @param playable the packed cards playable from the parent in this iteration
+         * @return the index of the best child, or NONE if no child has a playable card
          */
-        private void updateScore(Node child) {
-            if (areNodesFromTheSameTeam(child)) {
-                totalScore += child.totalScore;
-            } else {
-                totalScore += MAX_SCORE - child.totalScore;
+        private int bestChild(int node, long playable) {
+            if (PackedCardSet.isEmpty(playable))
+                return NONE;
+
+            double parentTerm = policy.parentTerm(visits.get(node));
+            double prior = 1.0 / PackedCardSet.size(playable);
+            TeamId team = nextPlayer(trick[node]).team();
+            int best = NONE;
+            double maxValueOfV = Double.NEGATIVE_INFINITY;
+
+            int children = children(node);
+            int child = firstChild.get(node);
+            for (int k = 0; k < children && child >= 0; child = nextChild(node, child, ++k)) {
+                int visitsOfChild = visits.get(child);
+                if (visitsOfChild == 0 || !PackedCardSet.contains(playable, card[child]))
+                    continue;
+                if (determinized)
+                    parentTerm = policy.parentTerm(available.incrementAndGet(child));
+
+                double valueOfV = policy.value(averageScore(child, team), variance(child), visitsOfChild, parentTerm,
+                        prior);
+                if (valueOfV > maxValueOfV) {
+                    maxValueOfV = valueOfV;
+                    best = child;
+                }
             }
+
+            return best;
         }
 
         /*
-         * Get the cards in the Node
+         * Returns the average score of the given child for the given team, the team of the player of its card,
+         * taken from the transposition table if the state of the child has an entry with simulations
          */
-        private CardSet getNodeCards() {
-            return CardSet.ALL_CARDS.difference(turnState.unplayedCards());
+        private double averageScore(int child, TeamId team) {
+            if (table != null && entry[child] != NONE && table.holds(entry[child], key[child])) {
+                int visitsOfEntry = table.visits(entry[child]);
+                if (visitsOfEntry > 0)
+                    return (double) table.score(entry[child], team) / visitsOfEntry;
+            }
+
+            return (double) totalScore.get(child) / visits.get(child);
+        }
+
+        /*
+         * Returns the variance of the scores of the given child computed from its own simulations, or 0 if the
+         * squares of the scores are not kept
+         */
+        private double variance(int child) {
+            if (totalSquare == null)
+                return 0;
+
+            double average = (double) totalScore.get(child) / visits.get(child);
+            return (double) totalSquare.get(child) / visits.get(child) - average * average;
+        }
+
+        /*
+         * Returns the cards the next player can play from the given Node with the given hands, or the empty set
+         * if the turn is over
+         */
+        private long playableCards(int node, long[] hands) {
+            int pkTrick = trick[node];
+            if (pkTrick == PackedTrick.INVALID)
+                return PackedCardSet.EMPTY;
+
+            long holding = PackedCardSet.intersection(hands[nextPlayer(pkTrick).ordinal()], unplayed[node]);
+            return PackedTrick.playableCards(pkTrick, holding);
+        }
+
+        /*
+         * Returns the number of indexes of the chunks of children of the given Node which are claimed by an
+         * expanded card, some of them not being written yet when several threads expand the tree
+         */
+        private int children(int node) {
+            return PackedCardSet.size(expanded.get(node));
+        }
+
+        private static PlayerId nextPlayer(int pkTrick) {
+            return PackedTrick.player(pkTrick, PackedTrick.size(pkTrick));
         }
     }
 }
@@ -0,0 +1,123 @@
+package main.java.jass;
+
+import java.util.SplittableRandom;
+
+/**
+ * The simulations of the MctsPlayer : a turn is finished by playing playable cards chosen by a rollout policy,
+ * using only packed components held in local variables. The random policy plays uniformly random cards. The greedy
+ * policy plays as a cautious player would :
+ * - the first player of a trick plays a random card,
+ * - a player whose partner wins the trick gives it its most valuable card which is not a trump,
+ * - another player wins the trick with its weakest winning card if it can,
+ * - and otherwise discards its card with the fewest points.
+ * A greedy player still plays a random card in one case out of EXPLORATION, so that the simulations of
+ * a state do not all end the same way.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+final class MctsRollout {
+
+    private static final int EXPLORATION = 8;
+
+    private MctsRollout() {}
+
+    /**
+     * Finishes the turn with the given policy and returns the packed score of both teams. Every player plays the unplayed
+     * cards of the set it holds, the sets of different players may overlap when the hands are not known.
+     *
+     * @param pkScore the packed score at the beginning of the simulation
+     * @param pkUnplayedCards the packed set of the cards not played yet
+     * @param pkTrick the packed trick, which is not full, or PackedTrick.INVALID if the turn is already over
+     * @param pkHands the packed sets of the cards each player can hold, indexed by the ordinal of its PlayerId,
+     *                which are not modified
+     * @param policy the policy choosing the cards
+     * @param rng the random used to choose the cards
+     * @return the packed score at the end of the turn
+     */
+    static long finalScore(long pkScore, long pkUnplayedCards, int pkTrick, long[] pkHands,
+                           MctsOptions.RolloutPolicy policy, SplittableRandom rng) {
+        if (pkTrick == PackedTrick.INVALID)
+            return pkScore;
+
+        int firstPlayer = PackedTrick.player(pkTrick, 0).ordinal();
+        int size = PackedTrick.size(pkTrick);
+
+        while (true) {
+            long holding = PackedCardSet.intersection(pkHands[(firstPlayer + size) % PlayerId.COUNT], pkUnplayedCards);
+            long playable = PackedTrick.playableCards(pkTrick, holding);
+            int pkCard = policy == MctsOptions.RolloutPolicy.GREEDY && size > 0 && rng.nextInt(EXPLORATION) != 0
+                    ? greedyCard(pkTrick, playable, firstPlayer + size)
+                    : PackedCardSet.get(playable, rng.nextInt(PackedCardSet.size(playable)));
+
+            pkUnplayedCards = PackedCardSet.difference(pkUnplayedCards, PackedCardSet.singleton(pkCard));
+            pkTrick = PackedTrick.withAddedCard(pkTrick, pkCard);
+
+            if (++size == PlayerId.COUNT) {
+                PlayerId winningPlayer = PackedTrick.winningPlayer(pkTrick);
+                pkScore = PackedScore.withAdditionalTrick(pkScore, winningPlayer.team(), PackedTrick.points(pkTrick));
+                if (PackedTrick.isLast(pkTrick))
+                    return pkScore;
+
+                pkTrick = PackedTrick.nextEmpty(pkTrick);
+                firstPlayer = winningPlayer.ordinal();
+                size = 0;
+            }
+        }
+    }
+
+    /**
+     * Finishes the turn several times in a row with the given policy and returns the packed score of the last
+     * simulation, whose turn points are replaced by the rounded averages of the turn points of all the simulations
+     *
+     * @param pkScore the packed score at the beginning of the simulations
+     * @param pkUnplayedCards the packed set of the cards not played yet
+     * @param pkTrick the packed trick, which is not full, or PackedTrick.INVALID if the turn is already over
+     * @param pkHands the packed sets of the cards each player can hold, indexed by the ordinal of its PlayerId,
+     *                which are not modified
+     * @param policy the policy choosing the cards
+     * @param rollouts the number of simulations, at least 1
+     * @param rng the random used to choose the cards
+     * @return the packed score at the end of the turn, with the average turn points
+     */
+    static long averageFinalScore(long pkScore, long pkUnplayedCards, int pkTrick, long[] pkHands,
+                                  MctsOptions.RolloutPolicy policy, int rollouts, SplittableRandom rng) {
+        long finalScore = finalScore(pkScore, pkUnplayedCards, pkTrick, pkHands, policy, rng);
+        if (rollouts == 1 || pkTrick == PackedTrick.INVALID)
+            return finalScore;
+
+        int pointsOfTeam1 = PackedScore.turnPoints(finalScore, TeamId.TEAM_1);
+        int pointsOfTeam2 = PackedScore.turnPoints(finalScore, TeamId.TEAM_2);
+        for (int i = 1; i < rollouts; i++) {
+            finalScore = finalScore(pkScore, pkUnplayedCards, pkTrick, pkHands, policy, rng);
+            pointsOfTeam1 += PackedScore.turnPoints(finalScore, TeamId.TEAM_1);
+            pointsOfTeam2 += PackedScore.turnPoints(finalScore, TeamId.TEAM_2);
+        }
+
+        return PackedScore.pack(
+                PackedScore.turnTricks(finalScore, TeamId.TEAM_1), (pointsOfTeam1 + rollouts / 2) / rollouts,
+                PackedScore.gamePoints(finalScore, TeamId.TEAM_1),
+                PackedScore.turnTricks(finalScore, TeamId.TEAM_2), (pointsOfTeam2 + rollouts / 2) / rollouts,
+                PackedScore.gamePoints(finalScore, TeamId.TEAM_2));
+    }
+
+    /*
+     * Chooses the card of the greedy policy among the playable cards of the given player, the trick not being empty
+     */
+    private static int greedyCard(int pkTrick, long playable, int player) {
+        int winningPlayer = PackedTrick.winningPlayer(pkTrick).ordinal();
+        if ((winningPlayer - player) % 2 == 0) {
+            long trumps = PackedCardSet.subsetOfColor(playable, PackedTrick.trump(pkTrick));
+            long notTrumps = PackedCardSet.difference(playable, trumps);
+            return notTrumps != PackedCardSet.EMPTY
+                    ? PackedTrick.mostValuableCard(pkTrick, notTrumps)
+                    : PackedTrick.cheapestCard(pkTrick, playable);
+        }
+
+        long winningCards = PackedTrick.winningCards(pkTrick, playable);
+        return winningCards != PackedCardSet.EMPTY
+                ? PackedTrick.weakestCard(pkTrick, winningCards)
+                : PackedTrick.cheapestCard(pkTrick, playable);
+    }
+}
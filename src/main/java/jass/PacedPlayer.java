@@ -1,6 +1,7 @@
 package main.java.jass;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A paced Player
@@ -94,5 +95,14 @@ public final class PacedPlayer  implements Player {
         underlyingPlayer.setWinningTeam(winningTeam);
     }
 
+    /**
+     * Gives the events needed by the underlying player
+     *
+     * @return the events the player needs
+     */
+    public Set<Event> neededEvents() {
+        return underlyingPlayer.neededEvents();
+    }
+
 
 }
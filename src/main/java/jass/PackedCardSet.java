@@ -21,6 +21,10 @@ public final class PackedCardSet {
 
     private static final long allCardsOfSameColor = 0b111111111L;
 
+    private static final long ONES_STEP_8 = 0x0101010101010101L;
+    private static final long MSBS_STEP_8 = 0x8080808080808080L;
+    private static final byte[] selectInByte = selectInByte();
+
     private PackedCardSet() {}
 
     /**
@@ -53,7 +57,7 @@ public final class PackedCardSet {
      */
     public static long singleton(int pkCard) {
         assert PackedCard.isValid(pkCard);
-        return (EMPTY + 1 << (PackedCard.color(pkCard).ordinal() * SIZE_SUBSET_OF_COLOUR + PackedCard.rank(pkCard).ordinal()));
+        return 1L << pkCard;
     }
 
     /**
@@ -77,7 +81,10 @@ public final class PackedCardSet {
     }
 
     /**
-     * Given a set of packed card and an index, returns the cards 'index' 1 contained in the set
+     * Given a set of packed card and an index, returns the cards 'index' 1 contained in the set.
+     * The position of the bit is found in constant time : the popcounts of the bytes of the set are summed in
+     * parallel to find the byte containing the bit, whose position is then read in a table. As every colour
+     * takes 16 bits, the position of the bit of a card is equal to the packed card.
      *
      * @param pkCardSet the set of packed cards
      * @param index the index of the cards, where index 0 is the least significant bit equal to 1
@@ -85,18 +92,20 @@ public final class PackedCardSet {
      */
     public static int get(long pkCardSet, int index) {
         assert isValid(pkCardSet);
+        assert index >= 0 && index < size(pkCardSet);
 
-        long copy = pkCardSet;
-        long oneBit = 0;
+        long bytesPopcounts = pkCardSet - ((pkCardSet >>> 1) & 0x5555555555555555L);
+        bytesPopcounts = (bytesPopcounts & 0x3333333333333333L) + ((bytesPopcounts >>> 2) & 0x3333333333333333L);
+        bytesPopcounts = (bytesPopcounts + (bytesPopcounts >>> 4)) & 0x0F0F0F0F0F0F0F0FL;
+        long cumulatedPopcounts = bytesPopcounts * ONES_STEP_8;
 
-        for(int i = 0; i < index; i++) {
-            oneBit = Long.lowestOneBit(copy);
-            copy = copy - oneBit;
-        }
+        long bytesBefore = ((index * ONES_STEP_8 | MSBS_STEP_8) - cumulatedPopcounts) & MSBS_STEP_8;
+        int position = Long.bitCount(bytesBefore) * Byte.SIZE;
+        int indexInByte = index - (int) (((cumulatedPopcounts << Byte.SIZE) >>> position) & 0xFF);
 
-        int position = Long.numberOfTrailingZeros(copy);
-        int rank = position % SIZE_SUBSET_OF_COLOUR;
-        return PackedCard.pack(Card.Color.ALL.get((position - (rank)) / SIZE_SUBSET_OF_COLOUR), Card.Rank.ALL.get(rank));
+        int pkCard = position + selectInByte[(int) ((pkCardSet >>> position) & 0xFF) | indexInByte << Byte.SIZE];
+        assert PackedCard.isValid(pkCard);
+        return pkCard;
     }
 
     /**
@@ -209,4 +218,19 @@ public final class PackedCardSet {
         return stringJoiner.toString();
     }
 
-}
\ No newline at end of file
+    /*
+     * Builds the table giving, at index byte | i << 8, the position of the i-th bit equal to 1 in the byte
+     */
+    private static byte[] selectInByte() {
+        byte[] table = new byte[Byte.SIZE << Byte.SIZE];
+        for (int b = 0; b < 1 << Byte.SIZE; b++) {
+            int i = 0;
+            for (int position = 0; position < Byte.SIZE; position++) {
+                if ((b & 1 << position) != 0)
+                    table[b | i++ << Byte.SIZE] = (byte) position;
+            }
+        }
+
+        return table;
+    }
+}
@@ -30,6 +30,56 @@ public final class PackedTrick {
     private static final int INDEX_START = 24;
     private static final int TRUMP_SIZE = 2;
     private static final int TRUMP_START = 30;
+    private static final int COLOR_SIZE = 2;
+    private static final int COLOR_START = 4;
+    private static final long COLOR_MASK = 0b111111111L;
+    private static final int CARD_MASK = 0b111111;
+
+    //Indexed by trump << 6 | packed card
+    private static final int[] cardStrength = new int[1 << (COLOR_SIZE + CARD_SIZE)];
+    private static final int[] cardPoints = new int[1 << (COLOR_SIZE + CARD_SIZE)];
+    private static final int BASE_COLOR_BONUS = Card.Rank.COUNT;
+    private static final int TRUMP_STRENGTH = 2 * BASE_COLOR_BONUS;
+    private static final int NOT_PLAYED_STRENGTH = -2 * BASE_COLOR_BONUS;
+
+    //Indexed by trump << 8 | base colour << 6 | packed winning card
+    private static final long[] allowedTrumps = new long[1 << (2 * COLOR_SIZE + CARD_SIZE)];
+    private static final long[] bauerAlone = new long[1 << (2 * COLOR_SIZE + CARD_SIZE)];
+
+    static {
+        for (Card.Color trump : Card.Color.ALL) {
+            for (int pkCard = 0; pkCard < 1 << CARD_SIZE; pkCard++) {
+                int index = trump.ordinal() << CARD_SIZE | pkCard;
+                if (!PackedCard.isValid(pkCard)) {
+                    cardStrength[index] = NOT_PLAYED_STRENGTH;
+                } else {
+                    cardStrength[index] = PackedCard.color(pkCard) == trump
+                            ? TRUMP_STRENGTH + PackedCard.rank(pkCard).trumpOrdinal()
+                            : PackedCard.rank(pkCard).ordinal();
+                    cardPoints[index] = PackedCard.points(trump, pkCard);
+                }
+            }
+        }
+
+        for (Card.Color trump : Card.Color.ALL) {
+            long allTrumps = COLOR_MASK << (trump.ordinal() * SUBSET_OF_A_COLOR);
+            long bauer = PackedCardSet.singleton(PackedCard.pack(trump, Card.Rank.JACK));
+
+            for (Card.Color baseColor : Card.Color.ALL) {
+                for (int winningCard = 0; winningCard < 1 << CARD_SIZE; winningCard++) {
+                    if (!PackedCard.isValid(winningCard))
+                        continue;
+
+                    int index = trump.ordinal() << (COLOR_SIZE + CARD_SIZE) | baseColor.ordinal() << CARD_SIZE | winningCard;
+                    //Once a trump has been played, only the trumps above it can be played
+                    allowedTrumps[index] = PackedCard.color(winningCard) == trump
+                            ? PackedCardSet.trumpAbove(winningCard)
+                            : allTrumps;
+                    bauerAlone[index] = baseColor == trump ? bauer : PackedCardSet.EMPTY;
+                }
+            }
+        }
+    }
 
     /**
      * Checks if the packed trick of 32 bits is valid : the index (bit 24 to 27) must be between 0 and 8 included,
@@ -212,8 +262,9 @@ public final class PackedTrick {
     }
 
     /**
-     * Returns all the cards that are playable, given a trick and a hand. All the numbers in comments are representing the different
-     * cases
+     * Returns all the cards that are playable, given a trick and a hand. The rules only depend on the trump, the
+     * base colour and the winning card of the trick, so the masks of the trump cards that can be played and of the
+     * Bauer (the jack of trump, which never has to be played) are read in tables indexed by these three values.
      *
      * @param pkTrick a packed trick
      * @param pkHand a packed set of cards, the cards in the hand of the player
@@ -223,63 +274,25 @@ public final class PackedTrick {
         assert isValid(pkTrick);
         assert PackedCardSet.isValid(pkHand);
 
-        Card.Color trumpColor = trump(pkTrick);
-        long subsetOfTrumpColor = PackedCardSet.subsetOfColor(pkHand, trumpColor);
-        int winningCardOfTheTrick = card(pkTrick, indexOfWinningCard(pkTrick));
         //First card of the trick
-        if (isEmpty(pkTrick)) {
+        if (isEmpty(pkTrick))
             return pkHand;
-        } else {
-            long subsetOfTheRightColor = PackedCardSet.subsetOfColor(pkHand, PackedCard.color(card(pkTrick, FIRST_CARD_START)));
-            //Can't follow on the first card
-            if (PackedCardSet.isEmpty(subsetOfTheRightColor)) {
-                //No trump in the hand (8), (9)
-                if (PackedCardSet.isEmpty(subsetOfTrumpColor))
-                    return pkHand;
-                else {
-                    long subsetOfTrumpAbove = PackedCardSet.intersection(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick));
-                    //A trump has already been played
-                    if (Card.ofPacked(winningCardOfTheTrick).color() == trumpColor) {
-                        //Hand contains trumpAbove
-                        if (setContainsCardAbove(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick))) {
-                            //Hand contains other colours (10)
-                            if (!PackedCardSet.isEmpty(PackedCardSet.difference(pkHand, subsetOfTrumpColor)))
-                                return PackedCardSet.union(subsetOfTrumpAbove, PackedCardSet.difference(pkHand, subsetOfTrumpColor));
-                                //(11)
-                            else
-                                return subsetOfTrumpAbove;
-                        } else {
-                            //(12)
-                            if (!PackedCardSet.isEmpty(PackedCardSet.difference(pkHand, subsetOfTrumpColor)))
-                                return PackedCardSet.difference(pkHand, subsetOfTrumpColor);
-                                //(13)
-                            else
-                                return subsetOfTrumpColor;
-                        }
-                        //(14)
-                    } else
-                        return pkHand;
-                }
 
-            } else {
-                long subsetOfTrumpAbove = PackedCardSet.intersection(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick));
-                //To check if base colour is trumpColor and if only remaining card in trump is JACK (4)
-                if (subsetOfTheRightColor == subsetOfTrumpColor) {
-                    if (subsetOfTrumpColor == 1 << (trumpColor.ordinal() * SUBSET_OF_A_COLOR + Card.Rank.JACK.ordinal()))
-                        return pkHand;
-                    //Trump has already been played
-                }
-                if (Card.ofPacked(winningCardOfTheTrick).color() == trumpColor) {
-                    //(3), (6)
-                    if (setContainsCardAbove(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick)))
-                        return PackedCardSet.union(subsetOfTrumpAbove, subsetOfTheRightColor);
-                        //(2), (5)
-                    else
-                        return subsetOfTheRightColor;
-                    //No trump has been played yet (7)
-                } else
-                    return PackedCardSet.union(subsetOfTrumpColor, subsetOfTheRightColor);
-            }
+        int trump = pkTrick >>> TRUMP_START;
+        int baseColor = card(pkTrick, FIRST_CARD_START) >>> COLOR_START;
+        int index = trump << (COLOR_SIZE + CARD_SIZE) | baseColor << CARD_SIZE | card(pkTrick, indexOfWinningCard(pkTrick));
+
+        long subsetOfTheRightColor = pkHand & (COLOR_MASK << (baseColor * SUBSET_OF_A_COLOR));
+        if (subsetOfTheRightColor != PackedCardSet.EMPTY) {
+            //The Bauer alone never has to be played to follow the trump colour
+            if (subsetOfTheRightColor == bauerAlone[index])
+                return pkHand;
+            //Follow the base colour, or play a trump allowed above the winning card
+            return subsetOfTheRightColor | (pkHand & allowedTrumps[index]);
+        } else {
+            //Can't follow : any other colour, or a trump allowed above the winning card, or anything if none of them
+            long playable = (pkHand & ~(COLOR_MASK << (trump * SUBSET_OF_A_COLOR))) | (pkHand & allowedTrumps[index]);
+            return playable == PackedCardSet.EMPTY ? pkHand : playable;
         }
     }
 
@@ -290,12 +303,11 @@ public final class PackedTrick {
     public static int points(int pkTrick) {
         assert isValid(pkTrick);
 
-        int points = 0;
-
-        for (int i = 0; i < MAX_CARDS_IN_TRICK; i++) {
-            Card card = Card.ofPacked(card(pkTrick, i));
-            points += card.points(trump(pkTrick));
-        }
+        int trumpIndex = (pkTrick >>> TRUMP_START) << CARD_SIZE;
+        int points = cardPoints[trumpIndex | pkTrick & CARD_MASK]
+                + cardPoints[trumpIndex | (pkTrick >>> CARD_SIZE) & CARD_MASK]
+                + cardPoints[trumpIndex | (pkTrick >>> 2 * CARD_SIZE) & CARD_MASK]
+                + cardPoints[trumpIndex | (pkTrick >>> 3 * CARD_SIZE) & CARD_MASK];
 
         if (isLast(pkTrick)) {
             points += Jass.LAST_TRICK_ADDITIONAL_POINTS;
@@ -314,6 +326,104 @@ public final class PackedTrick {
         return player(pkTrick, indexOfWinningCard(pkTrick));
     }
 
+    /**
+     * Returns the cards of the given set which would win the trick if they were played now
+     *
+     * @param pkTrick a packed trick, which is not empty
+     * @param pkCards a packed set of cards
+     * @return the packed set of the cards winning the trick
+     */
+    static long winningCards(int pkTrick, long pkCards) {
+        assert isValid(pkTrick) && !isEmpty(pkTrick);
+
+        int trump = pkTrick >>> TRUMP_START;
+        int winningCard = card(pkTrick, indexOfWinningCard(pkTrick));
+        int winningColor = winningCard >>> COLOR_START;
+        if (winningColor == trump)
+            return pkCards & PackedCardSet.trumpAbove(winningCard);
+
+        //A card which is not a trump only wins if it is of the base colour, as the winning card, and above it
+        long above = (COLOR_MASK << (winningColor * SUBSET_OF_A_COLOR)) & -(2L << winningCard);
+        return pkCards & (above | (COLOR_MASK << (trump * SUBSET_OF_A_COLOR)));
+    }
+
+    /**
+     * Returns the card of the given set with the fewest points, the weakest one among them if several cards have
+     * the same points
+     *
+     * @param pkTrick a packed trick, whose trump is used
+     * @param pkCards a packed set of cards, which is not empty
+     * @return the packed cheapest card
+     */
+    static int cheapestCard(int pkTrick, long pkCards) {
+        assert pkCards != PackedCardSet.EMPTY;
+
+        int trumpIndex = (pkTrick >>> TRUMP_START) << CARD_SIZE;
+        int cheapest = PackedCard.INVALID;
+        int cheapestValue = Integer.MAX_VALUE;
+        for (long cards = pkCards; cards != PackedCardSet.EMPTY; cards &= cards - 1) {
+            int pkCard = Long.numberOfTrailingZeros(cards);
+            //The points decide, and the strength breaks the ties
+            int value = cardPoints[trumpIndex | pkCard] * 2 * TRUMP_STRENGTH + cardStrength[trumpIndex | pkCard];
+            if (value < cheapestValue) {
+                cheapestValue = value;
+                cheapest = pkCard;
+            }
+        }
+
+        return cheapest;
+    }
+
+    /**
+     * Returns the card of the given set with the most points, the strongest one among them if several cards have
+     * the same points
+     *
+     * @param pkTrick a packed trick, whose trump is used
+     * @param pkCards a packed set of cards, which is not empty
+     * @return the packed most valuable card
+     */
+    static int mostValuableCard(int pkTrick, long pkCards) {
+        assert pkCards != PackedCardSet.EMPTY;
+
+        int trumpIndex = (pkTrick >>> TRUMP_START) << CARD_SIZE;
+        int mostValuable = PackedCard.INVALID;
+        int mostValuableValue = Integer.MIN_VALUE;
+        for (long cards = pkCards; cards != PackedCardSet.EMPTY; cards &= cards - 1) {
+            int pkCard = Long.numberOfTrailingZeros(cards);
+            int value = cardPoints[trumpIndex | pkCard] * 2 * TRUMP_STRENGTH + cardStrength[trumpIndex | pkCard];
+            if (value > mostValuableValue) {
+                mostValuableValue = value;
+                mostValuable = pkCard;
+            }
+        }
+
+        return mostValuable;
+    }
+
+    /**
+     * Returns the weakest card of the given set, without taking the base colour into account
+     *
+     * @param pkTrick a packed trick, whose trump is used
+     * @param pkCards a packed set of cards, which is not empty
+     * @return the packed weakest card
+     */
+    static int weakestCard(int pkTrick, long pkCards) {
+        assert pkCards != PackedCardSet.EMPTY;
+
+        int trumpIndex = (pkTrick >>> TRUMP_START) << CARD_SIZE;
+        int weakest = PackedCard.INVALID;
+        int weakestStrength = Integer.MAX_VALUE;
+        for (long cards = pkCards; cards != PackedCardSet.EMPTY; cards &= cards - 1) {
+            int pkCard = Long.numberOfTrailingZeros(cards);
+            if (cardStrength[trumpIndex | pkCard] < weakestStrength) {
+                weakestStrength = cardStrength[trumpIndex | pkCard];
+                weakest = pkCard;
+            }
+        }
+
+        return weakest;
+    }
+
     /**
      * @param pkTrick a packed trick
      * @return a string containing the colour and rank of all cards in the trick
@@ -331,28 +441,24 @@ public final class PackedTrick {
         return stringJoiner.toString();
     }
 
-    private static boolean setContainsCardAbove(long pkCardSet1, long pkCardSet2) {
-        assert PackedCardSet.isValid(pkCardSet1);
-        assert PackedCardSet.isValid(pkCardSet2);
-
-        int numberOfCardsAbove = 0;
-        for(int i = 0; i < PackedCardSet.size(pkCardSet2); i++) {
-            if(PackedCardSet.contains(pkCardSet1, PackedCardSet.get(pkCardSet2, i)))
-                numberOfCardsAbove ++;
-        }
-
-        return numberOfCardsAbove >= 1;
-    }
-
+    /*
+     * The strength of a card is read in the table of the trump, and the cards of the base colour get a bonus so
+     * that they are stronger than the cards of the other colours. The cards which are not yet played are weaker
+     * than all the others, so the four cards can always be compared.
+     */
     private static int indexOfWinningCard(int pkTrick) {
         assert isValid(pkTrick);
 
-        int winningCard = card(pkTrick, 0);
+        int trumpIndex = (pkTrick >>> TRUMP_START) << CARD_SIZE;
+        int baseColor = (pkTrick & CARD_MASK) >>> COLOR_START;
         int index = 0;
+        int winningStrength = Integer.MIN_VALUE;
 
-        for (int i = 1; i < size(pkTrick); i++) {
-            if (PackedCard.isBetter(Card.Color.ALL.get((trump(pkTrick)).ordinal()), card(pkTrick, i), winningCard)) {
-                winningCard = card(pkTrick, i);
+        for (int i = 0; i < MAX_CARDS_IN_TRICK; i++) {
+            int pkCard = (pkTrick >>> (i * CARD_SIZE)) & CARD_MASK;
+            int strength = cardStrength[trumpIndex | pkCard] + ((pkCard >>> COLOR_START) == baseColor ? BASE_COLOR_BONUS : 0);
+            if (strength > winningStrength) {
+                winningStrength = strength;
                 index = i;
             }
         }
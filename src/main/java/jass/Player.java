@@ -1,6 +1,8 @@
 package main.java.jass;
 
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The interface of a player
@@ -18,4 +20,26 @@ public interface Player {
      default void updateTrick(Trick newTrick) {}
      default void updateScore(Score score) {}
      default void setWinningTeam(TeamId winningTeam) {}
+
+     /**
+      * Gives the events the player must be notified of, the game skipping the others. A player overriding one of
+      * the methods above must include its event, and all the events are needed by default.
+      *
+      * @return the events the player needs
+      */
+     default Set<Event> neededEvents() {
+          return EnumSet.allOf(Event.class);
+     }
+
+     /**
+      * The events a game notifies the players of, one per method of Player, apart from cardToPlay
+      */
+     enum Event {
+          PLAYERS,
+          HAND,
+          TRUMP,
+          TRICK,
+          SCORE,
+          WINNING_TEAM
+     }
 }
@@ -0,0 +1,43 @@
+package main.java.jass;
+
+/**
+ * The PUCT selection policy, which weights the exploration term of a child by its prior probability P :
+ * V(s) = S/N + c * P * sqrt(Np) / (1 + N)
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class PuctPolicy implements SelectionPolicy {
+
+    /**
+     * The constant of the policy used by default, in points
+     */
+    public static final double DEFAULT_C = 200;
+
+    private final double c;
+
+    /**
+     * Builds the policy with the given constant
+     *
+     * @param c the constant of the exploration term, in points
+     */
+    public PuctPolicy(double c) {
+        this.c = c;
+    }
+
+    @Override
+    public double parentTerm(int parentVisits) {
+        return Math.sqrt(parentVisits);
+    }
+
+    @Override
+    public double value(double averageScore, double variance, int visits, double parentTerm, double prior) {
+        return averageScore + c * prior * parentTerm / (1 + visits);
+    }
+
+    @Override
+    public String toString() {
+        return "PUCT(c=" + c + ")";
+    }
+}
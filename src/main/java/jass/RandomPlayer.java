@@ -1,6 +1,8 @@
 package main.java.jass;
 
+import java.util.EnumSet;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * A random Player (plays card randomly)
@@ -21,5 +23,10 @@ public final class RandomPlayer implements Player {
             CardSet playable = state.trick().playableCards(hand);
             return playable.get(rng.nextInt(playable.size()));
         }
+
+        @Override
+        public Set<Event> neededEvents() {
+            return EnumSet.noneOf(Event.class);
+        }
 }
 
@@ -0,0 +1,40 @@
+package main.java.jass;
+
+/**
+ * The interface of a selection policy of the MctsPlayer, which gives to every child of a Node the value V(s)
+ * used to choose the child to explore. The scores are the points of the team of the player of the card leading
+ * to the child.
+ *
+ * The exploration term of most policies depends on the number of simulations of the parent, and this part of
+ * it is computed once per selection by parentTerm, then given to value for every child.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public interface SelectionPolicy {
+
+    /**
+     * @param parentVisits the number of simulations of the parent, or of the ones in which the child was playable
+     * @return the part of the exploration term which only depends on the simulations of the parent
+     */
+    double parentTerm(int parentVisits);
+
+    /**
+     * @param averageScore the average score of the child
+     * @param variance the variance of the scores of the child, computed from its own simulations (even when its
+     *                 average score comes from a transposition table), if the policy uses it
+     * @param visits the number of simulations of the child, at least 1
+     * @param parentTerm the part of the exploration term given by parentTerm
+     * @param prior the prior probability of the child, the same for all the children of a parent
+     * @return the value V(s) of the child
+     */
+    double value(double averageScore, double variance, int visits, double parentTerm, double prior);
+
+    /**
+     * @return true if the policy uses the variance of the scores, whose squares are otherwise not summed
+     */
+    default boolean usesSquares() {
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package main.java.jass;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A transposition table of the MctsPlayer, which shares the statistics of the states of a turn reached through
+ * different orders of cards. A state is identified by a Zobrist-style hash of its packed score, unplayed cards
+ * and trick : every byte of these components selects a random number in a table, and the hash is the exclusive
+ * or of the selected numbers.
+ *
+ * The table has a fixed number of entries, stored in parallel arrays and addressed by open addressing : a state
+ * can be stored in one of the PROBES entries following its hash. When all of them hold other states, the one with
+ * the fewest simulations is replaced. Several threads can use the same table : the entries are claimed with a
+ * compare-and-set on their key, and the statistics are updated atomically.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+final class TranspositionTable {
+
+    private final AtomicLongArray keys;
+    private final AtomicIntegerArray visits;
+    private final AtomicLongArray scoresOfTeam1;
+    private final AtomicLongArray scoresOfTeam2;
+    private final int mask;
+
+    private static final long EMPTY_KEY = 0L;
+    private static final int PROBES = 4;
+    private static final int BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final long[] RANDOMS = randoms();
+
+    /**
+     * Builds an empty table
+     *
+     * @param size the number of entries, rounded up to a power of two
+     */
+    TranspositionTable(int size) {
+        int capacity = Math.max(Integer.highestOneBit(size - 1) << 1, PROBES);
+        keys = new AtomicLongArray(capacity);
+        visits = new AtomicIntegerArray(capacity);
+        scoresOfTeam1 = new AtomicLongArray(capacity);
+        scoresOfTeam2 = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Computes the key of a state of the turn
+     *
+     * @param pkScore the packed score of the state
+     * @param pkUnplayedCards the packed unplayed cards of the state
+     * @param pkTrick the packed trick of the state
+     * @return the key of the state, which is never the one of an empty entry
+     */
+    static long key(long pkScore, long pkUnplayedCards, int pkTrick) {
+        long key = EMPTY_KEY;
+        int table = 0;
+        for (int i = 0; i < Long.BYTES; i++, table++) {
+            key ^= RANDOMS[table << Byte.SIZE | (int) (pkScore >>> i * Byte.SIZE) & 0xFF];
+        }
+        for (int i = 0; i < Long.BYTES; i++, table++) {
+            key ^= RANDOMS[table << Byte.SIZE | (int) (pkUnplayedCards >>> i * Byte.SIZE) & 0xFF];
+        }
+        for (int i = 0; i < Integer.BYTES; i++, table++) {
+            key ^= RANDOMS[table << Byte.SIZE | pkTrick >>> i * Byte.SIZE & 0xFF];
+        }
+
+        return key == EMPTY_KEY ? 1 : key;
+    }
+
+    /**
+     * Empties the table
+     */
+    void clear() {
+        for (int i = 0; i <= mask; i++) {
+            keys.set(i, EMPTY_KEY);
+        }
+    }
+
+    /**
+     * Finds the entry of the given state, or gives it a new entry with no simulation
+     *
+     * @param key the key of the state
+     * @return the index of the entry
+     */
+    int entry(long key) {
+        while (true) {
+            int replaced = (int) key & mask;
+            for (int i = 0; i < PROBES; i++) {
+                int entry = (int) (key + i) & mask;
+                long keyOfEntry = keys.get(entry);
+                if (keyOfEntry == key)
+                    return entry;
+                if (keyOfEntry == EMPTY_KEY) {
+                    replaced = entry;
+                    break;
+                }
+                if (visits.get(entry) < visits.get(replaced))
+                    replaced = entry;
+            }
+
+            long keyOfReplaced = keys.get(replaced);
+            if (keys.compareAndSet(replaced, keyOfReplaced, key)) {
+                visits.set(replaced, 0);
+                scoresOfTeam1.set(replaced, 0);
+                scoresOfTeam2.set(replaced, 0);
+                return replaced;
+            }
+        }
+    }
+
+    /**
+     * @param entry the index of an entry
+     * @param key the key of a state
+     * @return true if the entry still holds the state, false if it was replaced
+     */
+    boolean holds(int entry, long key) {
+        return keys.get(entry) == key;
+    }
+
+    /**
+     * @param entry the index of an entry
+     * @return the number of simulations of the entry
+     */
+    int visits(int entry) {
+        return visits.get(entry);
+    }
+
+    /**
+     * @param entry the index of an entry
+     * @param team a team
+     * @return the total of the points of the team in the simulations of the entry
+     */
+    long score(int entry, TeamId team) {
+        return team == TeamId.TEAM_1 ? scoresOfTeam1.get(entry) : scoresOfTeam2.get(entry);
+    }
+
+    /**
+     * Adds a simulation to the entry, if it still holds the given state
+     *
+     * @param entry the index of the entry
+     * @param key the key of the state
+     * @param pkScore the packed score at the end of the simulated turn
+     */
+    void add(int entry, long key, long pkScore) {
+        if (!holds(entry, key))
+            return;
+
+        visits.incrementAndGet(entry);
+        scoresOfTeam1.addAndGet(entry, PackedScore.turnPoints(pkScore, TeamId.TEAM_1));
+        scoresOfTeam2.addAndGet(entry, PackedScore.turnPoints(pkScore, TeamId.TEAM_2));
+    }
+
+    /*
+     * Draws the random numbers of the hash, one table of 256 numbers per byte of the state
+     */
+    private static long[] randoms() {
+        SplittableRandom rng = new SplittableRandom(0);
+        long[] randoms = new long[BYTES << Byte.SIZE];
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = rng.nextLong();
+        }
+
+        return randoms;
+    }
+}
@@ -0,0 +1,43 @@
+package main.java.jass;
+
+/**
+ * The UCB1 selection policy : V(s) = S/N + c * sqrt(2 * ln(Np) / N), where S is the total score and N the number
+ * of simulations of the child, and Np the number of simulations of its parent
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class Ucb1Policy implements SelectionPolicy {
+
+    /**
+     * The constant of the policy used by default, in points
+     */
+    public static final double DEFAULT_C = 40;
+
+    private final double c;
+
+    /**
+     * Builds the policy with the given constant
+     *
+     * @param c the constant of the exploration term, in points
+     */
+    public Ucb1Policy(double c) {
+        this.c = c;
+    }
+
+    @Override
+    public double parentTerm(int parentVisits) {
+        return 2 * Math.log(parentVisits);
+    }
+
+    @Override
+    public double value(double averageScore, double variance, int visits, double parentTerm, double prior) {
+        return averageScore + c * Math.sqrt(parentTerm / visits);
+    }
+
+    @Override
+    public String toString() {
+        return "UCB1(c=" + c + ")";
+    }
+}
@@ -0,0 +1,53 @@
+package main.java.jass;
+
+/**
+ * The UCB1-Tuned selection policy, which bounds the exploration term of a child by the variance of its scores :
+ * V(s) = S/N + c * R * sqrt(ln(Np) / N * min(1/4, Var/R^2 + sqrt(2 * ln(Np) / N))), where R is the largest number
+ * of points a team can make in a turn and Var the variance of the scores of the child
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class Ucb1TunedPolicy implements SelectionPolicy {
+
+    /**
+     * The constant of the policy used by default
+     */
+    public static final double DEFAULT_C = 1;
+
+    private final double c;
+
+    private static final double RANGE = 157 + Jass.MATCH_ADDITIONAL_POINTS; // all the points of a turn
+    private static final double MAX_VARIANCE = 0.25;
+
+    /**
+     * Builds the policy with the given constant
+     *
+     * @param c the factor of the exploration term
+     */
+    public Ucb1TunedPolicy(double c) {
+        this.c = c;
+    }
+
+    @Override
+    public double parentTerm(int parentVisits) {
+        return Math.log(parentVisits);
+    }
+
+    @Override
+    public double value(double averageScore, double variance, int visits, double parentTerm, double prior) {
+        double bound = Math.min(MAX_VARIANCE, variance / (RANGE * RANGE) + Math.sqrt(2 * parentTerm / visits));
+        return averageScore + c * RANGE * Math.sqrt(parentTerm / visits * bound);
+    }
+
+    @Override
+    public boolean usesSquares() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "UCB1-Tuned(c=" + c + ")";
+    }
+}
@@ -0,0 +1,79 @@
+package main.java.sim;
+
+import main.java.Preconditions;
+import main.java.jass.Jass;
+import main.java.jass.MctsOptions;
+import main.java.jass.MctsPlayer;
+import main.java.jass.Player;
+import main.java.jass.PlayerId;
+import main.java.jass.RandomPlayer;
+
+/**
+ * A configuration of Player, which builds a new Player for every game it plays
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+@FunctionalInterface
+public interface PlayerFactory {
+
+    /**
+     * Builds a new Player for a game
+     *
+     * @param ownId the PlayerId of the Player in the game
+     * @param rngSeed the seed of the Player
+     * @return the Player
+     */
+    Player newPlayer(PlayerId ownId, long rngSeed);
+
+    /**
+     * @return a factory of RandomPlayers
+     */
+    static PlayerFactory random() {
+        return (ownId, rngSeed) -> new RandomPlayer(rngSeed);
+    }
+
+    /**
+     * @param iterations the number of iterations of the MctsPlayers
+     * @param options the options of the MctsPlayers
+     * @return a factory of MctsPlayers
+     * @throws IllegalArgumentException if there are less than 9 iterations, or if the trees of the MctsPlayers
+     * would be too large (see MctsPlayer.treeCapacity)
+     */
+    static PlayerFactory mcts(int iterations, MctsOptions options) {
+        Preconditions.checkArgument(iterations >= Jass.HAND_SIZE);
+        Preconditions.checkArgument(MctsPlayer.treeCapacity(iterations, options) <= MctsPlayer.MAX_TREE_CAPACITY);
+        return (ownId, rngSeed) -> new MctsPlayer(ownId, rngSeed, iterations, options);
+    }
+
+    /**
+     * Builds the factory described by the given specification : either "random" for RandomPlayers, or
+     * "mcts:<iterations>" or "mcts:<iterations>:<options>" for MctsPlayers, with the options of the simulated
+     * players of LocalMain
+     *
+     * @param specification the specification of the factory
+     * @return the factory
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    static PlayerFactory of(String specification) {
+        if (specification.equals("random"))
+            return random();
+
+        String[] parts = specification.split(":", 3);
+        if (parts.length < 2 || !parts[0].equals("mcts"))
+            throw new IllegalArgumentException(specification);
+
+        int iterations;
+        try {
+            iterations = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(specification);
+        }
+        MctsOptions options = parts.length == 3 && !parts[2].isEmpty()
+                ? MctsOptions.DEFAULT.withOptions(parts[2])
+                : MctsOptions.DEFAULT;
+
+        return mcts(iterations, options);
+    }
+}
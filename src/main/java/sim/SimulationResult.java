@@ -0,0 +1,146 @@
+package main.java.sim;
+
+import main.java.Preconditions;
+
+/**
+ * The results of a configuration of Player against another one over a number of games : its number of wins
+ * and the differences between its points and the points of the other configuration at the end of the games
+ *
+ * The games are grouped in independent samples, each sample being either a single game or a pair of games
+ * played with the same deals and the configurations on swapped seats. The standard errors are computed from
+ * the variance of the samples, so that the correlation of the games of a pair is taken into account.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class SimulationResult {
+
+    /**
+     * The result of no game
+     */
+    public static final SimulationResult EMPTY = new SimulationResult(0, 0, 0, 0, 0, 0);
+
+    private final int games;
+    private final int samples;
+    private final int wins;
+    private final long squaredWins;
+    private final long differentials;
+    private final long squaredDifferentials;
+
+    private SimulationResult(int games, int samples, int wins, long squaredWins, long differentials,
+                             long squaredDifferentials) {
+        this.games = games;
+        this.samples = samples;
+        this.wins = wins;
+        this.squaredWins = squaredWins;
+        this.differentials = differentials;
+        this.squaredDifferentials = squaredDifferentials;
+    }
+
+    /**
+     * @param won true if the configuration won the game
+     * @param differential the difference between the points of the configuration and the ones of the other
+     *                     configuration at the end of the game
+     * @return the result of a single game, which is a sample
+     */
+    public static SimulationResult ofGame(boolean won, int differential) {
+        int win = won ? 1 : 0;
+        return new SimulationResult(1, 1, win, win, differential, (long) differential * differential);
+    }
+
+    /**
+     * @param mirrored the result of the game played with the same deals as this one, the configurations being
+     *                 on swapped seats
+     * @return the result of the pair of games, which is a single sample
+     * @throws IllegalArgumentException if this result or the given one is not the result of a single game
+     */
+    public SimulationResult pairedWith(SimulationResult mirrored) {
+        Preconditions.checkArgument(games == 1 && mirrored.games == 1);
+
+        int winsOfPair = wins + mirrored.wins;
+        long differentialOfPair = differentials + mirrored.differentials;
+        return new SimulationResult(2, 1, winsOfPair, winsOfPair * winsOfPair, differentialOfPair,
+                differentialOfPair * differentialOfPair);
+    }
+
+    /**
+     * @param that the result of other games between the same configurations
+     * @return the result of the games of both results
+     */
+    public SimulationResult combinedWith(SimulationResult that) {
+        return new SimulationResult(games + that.games, samples + that.samples, wins + that.wins,
+                squaredWins + that.squaredWins, differentials + that.differentials,
+                squaredDifferentials + that.squaredDifferentials);
+    }
+
+    /**
+     * @return the number of games
+     */
+    public int games() {
+        return games;
+    }
+
+    /**
+     * @return the number of independent samples, games or pairs of games
+     */
+    public int samples() {
+        return samples;
+    }
+
+    /**
+     * @return the number of games won by the configuration
+     */
+    public int wins() {
+        return wins;
+    }
+
+    /**
+     * @return the proportion of the games won by the configuration
+     */
+    public double winRate() {
+        return (double) wins / games;
+    }
+
+    /**
+     * @return the standard error of the win rate
+     */
+    public double winRateStandardError() {
+        return standardError(wins, squaredWins);
+    }
+
+    /**
+     * @return the average difference between the points of the configuration and the ones of the other
+     * configuration
+     */
+    public double averageDifferential() {
+        return (double) differentials / games;
+    }
+
+    /**
+     * @return the standard error of the average difference of points
+     */
+    public double differentialStandardError() {
+        return standardError(differentials, squaredDifferentials);
+    }
+
+    /*
+     * Computes the standard error of the average per game of a quantity, given its total and the total of its
+     * squares over the samples
+     */
+    private double standardError(long total, long squaredTotal) {
+        if (samples < 2)
+            return Double.NaN;
+
+        double average = (double) total / samples;
+        double variance = ((double) squaredTotal - samples * average * average) / (samples - 1);
+        double gamesPerSample = (double) games / samples;
+        return Math.sqrt(Math.max(variance, 0) / samples) / gamesPerSample;
+    }
+
+    @Override
+    public String toString() {
+        return "games=" + games + ",samples=" + samples + ",wins=" + wins + ",winRate=" + winRate()
+                + ",averageDifferential=" + averageDifferential() + ",standardError=" + differentialStandardError();
+    }
+}
@@ -0,0 +1,269 @@
+package main.java.sim;
+
+import main.java.Preconditions;
+import main.java.jass.*;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * A headless simulator playing games of Jass between two configurations of Player, without printing nor pacing,
+ * on several threads, with the lean engine LeanJassGame (which plays the same games as JassGame). Every game has
+ * its own seed, computed from the seed of the simulation and the index of the game, so that the results do not
+ * depend on the number of threads. The configurations play on the seats of each team in turn : the first one
+ * plays for TEAM_1 in the games of even index, and for TEAM_2 in the others.
+ *
+ * In duplicate mode, the games are played in pairs with the same seed, hence the same deals and trumps, the
+ * configurations swapping their seats between the two games of a pair. The luck of the deals then mostly cancels
+ * out in the sum of the point differentials of a pair (its paired differential), whose variance is much smaller
+ * than the one of the differentials of independent games.
+ *
+ * The threads of a simulator run until it is closed, so it should be used in a try-with-resources statement.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class Simulator implements AutoCloseable {
+
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    private static final int ARG_SIZE = 3;
+    private static final int ARG_SIZE_WITH_SEED = 4;
+    private static final int ARG_SIZE_WITH_THREADS = 5;
+    private static final String DUPLICATE = "duplicate";
+    private static final int INDEX_GAMES = 0;
+    private static final int INDEX_FIRST = 1;
+    private static final int INDEX_SECOND = 2;
+    private static final int INDEX_SEED = 3;
+    private static final int INDEX_THREADS = 4;
+    private static final int EXIT_STATUS = 1;
+
+    /**
+     * Builds a simulator playing the games on the given number of threads
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if threads is smaller than 1
+     */
+    public Simulator(int threads) {
+        Preconditions.checkArgument(threads >= 1);
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Shuts down the threads of the simulator, after the games being played. The simulator can no longer be used
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Plays the given number of games between the two configurations, and returns the results of the first one
+     *
+     * @param first the first configuration
+     * @param second the second configuration
+     * @param games the number of games
+     * @param rngSeed the seed of the simulation
+     * @return the results of the first configuration against the second one
+     * @throws IllegalArgumentException if the number of games is negative
+     */
+    public SimulationResult simulate(PlayerFactory first, PlayerFactory second, int games, long rngSeed) {
+        Preconditions.checkArgument(games >= 0);
+
+        return simulate(games, game -> playGame(first, second,
+                game % TeamId.COUNT == 0 ? TeamId.TEAM_1 : TeamId.TEAM_2, seedOfGame(rngSeed, game)));
+    }
+
+    /**
+     * Plays the given number of pairs of games between the two configurations in duplicate mode, and returns
+     * the results of the first one, each pair being a sample
+     *
+     * @param first the first configuration
+     * @param second the second configuration
+     * @param pairs the number of pairs of games
+     * @param rngSeed the seed of the simulation
+     * @return the results of the first configuration against the second one
+     * @throws IllegalArgumentException if the number of pairs is negative
+     */
+    public SimulationResult simulateDuplicate(PlayerFactory first, PlayerFactory second, int pairs,
+                                              long rngSeed) {
+        Preconditions.checkArgument(pairs >= 0);
+
+        return simulate(pairs, pair -> playMirroredGames(first, second, seedOfGame(rngSeed, pair)));
+    }
+
+    /*
+     * Plays the given number of samples, spread over the threads, and combines their results
+     */
+    private SimulationResult simulate(int samples, IntFunction<SimulationResult> sample) {
+        ForkJoinTask<?>[] workers = new ForkJoinTask<?>[threads];
+        SimulationResult[] results = new SimulationResult[threads];
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            workers[i] = pool.submit(() -> {
+                SimulationResult result = SimulationResult.EMPTY;
+                for (int index = worker; index < samples; index += threads) {
+                    result = result.combinedWith(sample.apply(index));
+                }
+                results[worker] = result;
+            });
+        }
+
+        SimulationResult result = SimulationResult.EMPTY;
+        for (int i = 0; i < threads; i++) {
+            workers[i].join();
+            result = result.combinedWith(results[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Plays a game between the two configurations until its end
+     *
+     * @param first the first configuration
+     * @param second the second configuration
+     * @param firstTeam the team whose seats the first configuration plays on
+     * @param rngSeed the seed of the game, from which the seeds of the deals and of the players are drawn
+     * @return the result of the first configuration in the game
+     */
+    public static SimulationResult playGame(PlayerFactory first, PlayerFactory second, TeamId firstTeam,
+                                            long rngSeed) {
+        Random rng = new Random(rngSeed);
+        long gameSeed = rng.nextLong();
+
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
+        for (PlayerId player : PlayerId.ALL) {
+            PlayerFactory factory = player.team() == firstTeam ? first : second;
+            players.put(player, factory.newPlayer(player, rng.nextLong()));
+            playerNames.put(player, player.name());
+        }
+
+        LeanJassGame game = new LeanJassGame(gameSeed, players, playerNames);
+        while (!game.isGameOver()) {
+            game.advanceToEndOfNextTrick();
+        }
+
+        Score score = game.score();
+        TeamId winningTeam = score.totalPoints(TeamId.TEAM_1) >= Jass.WINNING_POINTS ? TeamId.TEAM_1 : TeamId.TEAM_2;
+        return SimulationResult.ofGame(winningTeam == firstTeam,
+                score.totalPoints(firstTeam) - score.totalPoints(firstTeam.other()));
+    }
+
+    /**
+     * Plays two games with the same seed, hence the same deals and trumps, the first configuration playing on the
+     * seats of TEAM_1 in the first game and on the seats of TEAM_2 in the second one
+     *
+     * @param first the first configuration
+     * @param second the second configuration
+     * @param rngSeed the seed of both games
+     * @return the result of the first configuration in the pair of games
+     */
+    public static SimulationResult playMirroredGames(PlayerFactory first, PlayerFactory second, long rngSeed) {
+        return playGame(first, second, TeamId.TEAM_1, rngSeed)
+                .pairedWith(playGame(first, second, TeamId.TEAM_2, rngSeed));
+    }
+
+    /**
+     * Computes the seed of a game of a simulation
+     *
+     * @param rngSeed the seed of the simulation
+     * @param game the index of the game
+     * @return the seed of the game
+     */
+    public static long seedOfGame(long rngSeed, int game) {
+        return new SplittableRandom(rngSeed + game).nextLong();
+    }
+
+    /**
+     * Plays games between the two configurations given as arguments, and writes the results of the first one
+     *
+     * @param args optionally "duplicate", the number of games, the specifications of both configurations (see
+     *             PlayerFactory.of), and optionally the seed and the number of threads
+     */
+    public static void main(String[] args) {
+        boolean duplicate = args.length > 0 && args[0].equals(DUPLICATE);
+        if (duplicate)
+            args = Arrays.copyOfRange(args, 1, args.length);
+
+        if (args.length < ARG_SIZE || args.length > ARG_SIZE_WITH_THREADS) {
+            System.err.println("Utilisation: java main.java.sim.Simulator [duplicate] <n_parties> <c1> <c2> " +
+                    "[<graine>] [<n_threads>] où <c1> et <c2> spécifient les configurations de joueurs qui " +
+                    "s'affrontent :\n" +
+                    "\trandom  des joueurs aléatoires\n" +
+                    "\tmcts:<n_itérations>:<options>  des joueurs simulés (algorithme MCTS) qui itèrent " +
+                    "<n_itérations> fois, avec les <options> des joueurs simulés de LocalMain\n\n" +
+                    "- <graine> spécifie la graine utilisée afin de générer les parties (0 par défaut)\n" +
+                    "- <n_threads> spécifie le nombre de parties jouées en parallèle (le nombre de processeurs " +
+                    "par défaut)\n" +
+                    "- duplicate joue les parties par paires avec les mêmes donnes, les configurations échangeant " +
+                    "leurs places, et donne la différence de points de chaque paire (<n_parties> doit alors être " +
+                    "pair)");
+            System.exit(EXIT_STATUS);
+        }
+
+        int games = 0;
+        long seed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            games = Integer.parseInt(args[INDEX_GAMES]);
+            if (args.length >= ARG_SIZE_WITH_SEED)
+                seed = Long.parseLong(args[INDEX_SEED]);
+            if (args.length == ARG_SIZE_WITH_THREADS)
+                threads = Integer.parseInt(args[INDEX_THREADS]);
+            Preconditions.checkArgument(games >= 0 && threads >= 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur : le nombre de parties, la graine ou le nombre de threads est invalide");
+            System.exit(EXIT_STATUS);
+        }
+        if (duplicate && games % 2 != 0) {
+            System.err.println("Erreur : en mode duplicate, le nombre de parties doit être pair");
+            System.exit(EXIT_STATUS);
+        }
+
+        PlayerFactory first = factory(args[INDEX_FIRST]);
+        PlayerFactory second = factory(args[INDEX_SECOND]);
+
+        long start = System.nanoTime();
+        SimulationResult result;
+        try (Simulator simulator = new Simulator(threads)) {
+            result = duplicate
+                    ? simulator.simulateDuplicate(first, second, games / 2, seed)
+                    : simulator.simulate(first, second, games, seed);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(args[INDEX_FIRST] + " contre " + args[INDEX_SECOND] + " :");
+        System.out.printf("%d parties en %.1f s (%.1f parties/s)%n", result.games(), seconds,
+                result.games() / seconds);
+        System.out.printf("%d victoires (%.1f %%), différence moyenne de %+.1f ± %.1f points%n", result.wins(),
+                100 * result.winRate(), result.averageDifferential(), result.differentialStandardError());
+        if (duplicate)
+            System.out.printf("%d paires, différence moyenne par paire de %+.1f ± %.1f points%n", result.samples(),
+                    2 * result.averageDifferential(), 2 * result.differentialStandardError());
+    }
+
+    /*
+     * Builds the configuration of the given specification. If it is invalid, we stop the program and write
+     * in System.err.
+     */
+    private static PlayerFactory factory(String specification) {
+        try {
+            return PlayerFactory.of(specification);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur : configuration de joueur invalide : " + specification);
+            System.exit(EXIT_STATUS);
+            return null;
+        }
+    }
+}
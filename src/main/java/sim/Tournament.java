@@ -0,0 +1,378 @@
+package main.java.sim;
+
+import main.java.Preconditions;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A round-robin tournament between configurations of Player : every configuration plays against every other one
+ * pairs of games with the same deals, the configurations swapping their seats between the two games of a pair.
+ * All the pairings use the same sequence of deals.
+ *
+ * The pairs of games are played in batches on a pool of threads. After each batch, from a minimal number of
+ * pairs on, a pairing is tested for a win rate of its first configuration different from one half, and stops as
+ * soon as it is. As the test is repeated, it uses a group sequential boundary (Pocock) : the same critical value
+ * at every look, computed for the looks of the pairings so that a pairing between configurations of the same
+ * strength is wrongly found significant with a probability of 5 % over all its looks, instead of 5 % at each one.
+ * The confidence intervals are widened with the same critical value (repeated confidence intervals), so that they
+ * keep their 95 % coverage whenever the pairing stops.
+ *
+ * The Elo differences follow from the win rates, and the Elo ratings of the configurations are fitted on the wins
+ * of all the pairings (Bradley-Terry model), their average being 0.
+ *
+ * The threads of a tournament run until it is closed, so it should be used in a try-with-resources statement.
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class Tournament implements AutoCloseable {
+
+    private final List<String> names;
+    private final List<PlayerFactory> factories;
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of pairs of games played by a pairing before it can stop early
+     */
+    public static final int MIN_PAIRS = 50;
+
+    private static final int BATCH_PAIRS = 10;
+    private static final double Z = 1.96; // 95 % confidence, with a single look
+    private static final double ALPHA = 0.05;
+    private static final int BOUNDARY_PATHS = 100_000;
+    private static final long BOUNDARY_SEED = 2019;
+    private static final double ELO_SCALE = 400;
+    private static final int RATING_ITERATIONS = 100;
+
+    private static final int ARG_SIZE = 4;
+    private static final int INDEX_PAIRS = 0;
+    private static final int INDEX_SEED = 1;
+    private static final int INDEX_FIRST_CONFIGURATION = 2;
+    private static final int EXIT_STATUS = 1;
+
+    /**
+     * Builds a tournament between the given configurations
+     *
+     * @param configurations the configurations, with their names, in the order of the pairings
+     * @param threads the number of threads playing the games
+     * @throws IllegalArgumentException if there are less than two configurations or less than 1 thread
+     */
+    public Tournament(Map<String, PlayerFactory> configurations, int threads) {
+        Preconditions.checkArgument(configurations.size() >= 2 && threads >= 1);
+
+        names = Collections.unmodifiableList(new ArrayList<>(configurations.keySet()));
+        factories = Collections.unmodifiableList(new ArrayList<>(configurations.values()));
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Shuts down the threads of the tournament, after the games being played. The tournament can no longer play
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Plays all the pairings of the tournament
+     *
+     * @param maxPairs the maximal number of pairs of games of a pairing
+     * @param rngSeed the seed of the deals
+     * @return the results of the pairings, in the order of the configurations
+     * @throws IllegalArgumentException if maxPairs is smaller than 1
+     */
+    public List<Pairing> play(int maxPairs, long rngSeed) {
+        Preconditions.checkArgument(maxPairs >= 1);
+
+        double criticalValue = criticalValue(maxPairs);
+        List<Pairing> pairings = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                pairings.add(new Pairing(names.get(i), names.get(j), SimulationResult.EMPTY, criticalValue));
+            }
+        }
+
+        List<ForkJoinTask<SimulationResult>> batch = new ArrayList<>();
+        boolean playing = true;
+        while (playing) {
+            for (Pairing pairing : pairings) {
+                if (pairing.isOver(maxPairs))
+                    continue;
+
+                PlayerFactory first = factories.get(names.indexOf(pairing.first));
+                PlayerFactory second = factories.get(names.indexOf(pairing.second));
+                int firstPair = pairing.result.samples();
+                for (int pair = firstPair; pair < Math.min(firstPair + BATCH_PAIRS, maxPairs); pair++) {
+                    long seed = Simulator.seedOfGame(rngSeed, pair);
+                    batch.add(pool.submit(() -> Simulator.playMirroredGames(first, second, seed)));
+                }
+            }
+
+            playing = false;
+            Iterator<ForkJoinTask<SimulationResult>> results = batch.iterator();
+            for (int i = 0; i < pairings.size(); i++) {
+                Pairing pairing = pairings.get(i);
+                if (pairing.isOver(maxPairs))
+                    continue;
+
+                SimulationResult result = pairing.result;
+                int pairs = Math.min(BATCH_PAIRS, maxPairs - result.samples());
+                for (int pair = 0; pair < pairs; pair++) {
+                    result = result.combinedWith(results.next().join());
+                }
+                pairing = new Pairing(pairing.first, pairing.second, result, criticalValue);
+                pairings.set(i, pairing);
+                playing |= !pairing.isOver(maxPairs);
+            }
+            batch.clear();
+        }
+
+        return Collections.unmodifiableList(pairings);
+    }
+
+    /**
+     * Computes the critical value of the Pocock boundary for the looks of a pairing playing at most the given
+     * number of pairs : after every batch of pairs from MIN_PAIRS on, and at the end. It is the value which the
+     * largest absolute value of the normalized win rate over the looks only exceeds with a probability of 5 % for
+     * configurations of the same strength, whose normalized win rates at the looks behave as a random walk. Its
+     * distribution is sampled with a fixed seed, so that the critical value only depends on the looks.
+     *
+     * @param maxPairs the maximal number of pairs of games of a pairing
+     * @return the critical value, which is 1.96 when there is at most one look
+     */
+    public static double criticalValue(int maxPairs) {
+        List<Integer> looks = new ArrayList<>();
+        for (int pairs = BATCH_PAIRS; pairs < maxPairs + BATCH_PAIRS; pairs += BATCH_PAIRS) {
+            if (Math.min(pairs, maxPairs) >= MIN_PAIRS)
+                looks.add(Math.min(pairs, maxPairs));
+        }
+        if (looks.size() <= 1)
+            return Z;
+
+        Random rng = new Random(BOUNDARY_SEED);
+        double[] maxima = new double[BOUNDARY_PATHS];
+        for (int path = 0; path < BOUNDARY_PATHS; path++) {
+            double sum = 0;
+            int pairs = 0;
+            for (int look : looks) {
+                sum += rng.nextGaussian() * Math.sqrt(look - pairs);
+                pairs = look;
+                maxima[path] = Math.max(maxima[path], Math.abs(sum) / Math.sqrt(pairs));
+            }
+        }
+        Arrays.sort(maxima);
+
+        return maxima[(int) Math.ceil((1 - ALPHA) * BOUNDARY_PATHS) - 1];
+    }
+
+    /**
+     * Fits the Elo ratings of the configurations on the wins of the given pairings, with the iterations of the
+     * minorization-maximization algorithm of the Bradley-Terry model. Every pairing also counts a virtual game
+     * won by both configurations by half, so that the ratings stay finite when a configuration wins all its games.
+     *
+     * @param pairings the results of the pairings
+     * @return the Elo ratings of the configurations, whose average is 0
+     */
+    public Map<String, Double> ratings(List<Pairing> pairings) {
+        int count = names.size();
+        double[] wins = new double[count];
+        double[][] games = new double[count][count];
+        for (Pairing pairing : pairings) {
+            int first = names.indexOf(pairing.first);
+            int second = names.indexOf(pairing.second);
+            wins[first] += pairing.result.wins() + 0.5;
+            wins[second] += pairing.result.games() - pairing.result.wins() + 0.5;
+            games[first][second] += pairing.result.games() + 1;
+            games[second][first] += pairing.result.games() + 1;
+        }
+
+        double[] strengths = new double[count];
+        Arrays.fill(strengths, 1);
+        for (int iteration = 0; iteration < RATING_ITERATIONS; iteration++) {
+            double[] next = new double[count];
+            for (int i = 0; i < count; i++) {
+                double denominator = 0;
+                for (int j = 0; j < count; j++) {
+                    if (j != i)
+                        denominator += games[i][j] / (strengths[i] + strengths[j]);
+                }
+                next[i] = denominator == 0 ? strengths[i] : wins[i] / denominator;
+            }
+            strengths = next;
+        }
+
+        double averageLog = Arrays.stream(strengths).map(Math::log10).average().orElse(0);
+        Map<String, Double> ratings = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            ratings.put(names.get(i), ELO_SCALE * (Math.log10(strengths[i]) - averageLog));
+        }
+
+        return Collections.unmodifiableMap(ratings);
+    }
+
+    /**
+     * The result of the first configuration of a pairing against the second one
+     */
+    public static final class Pairing {
+
+        private final String first;
+        private final String second;
+        private final SimulationResult result;
+        private final double criticalValue;
+
+        private Pairing(String first, String second, SimulationResult result, double criticalValue) {
+            this.first = first;
+            this.second = second;
+            this.result = result;
+            this.criticalValue = criticalValue;
+        }
+
+        /**
+         * @return the name of the first configuration
+         */
+        public String first() {
+            return first;
+        }
+
+        /**
+         * @return the name of the second configuration
+         */
+        public String second() {
+            return second;
+        }
+
+        /**
+         * @return the result of the first configuration
+         */
+        public SimulationResult result() {
+            return result;
+        }
+
+        /**
+         * @return the critical value of the sequential test and of the confidence intervals of the pairing
+         */
+        public double criticalValue() {
+            return criticalValue;
+        }
+
+        /**
+         * @return true if the win rate of the first configuration differs from one half beyond the Pocock
+         * boundary, after at least MIN_PAIRS pairs of games
+         */
+        public boolean isSignificant() {
+            return result.samples() >= MIN_PAIRS
+                    && Math.abs(result.winRate() - 0.5) > criticalValue * result.winRateStandardError();
+        }
+
+        /**
+         * @return the Elo difference of the first configuration over the second one
+         */
+        public double elo() {
+            return eloOf(result.winRate());
+        }
+
+        /**
+         * @return the lower bound of the repeated confidence interval of the Elo difference
+         */
+        public double eloLowerBound() {
+            return eloOf(result.winRate() - criticalValue * result.winRateStandardError());
+        }
+
+        /**
+         * @return the upper bound of the repeated confidence interval of the Elo difference
+         */
+        public double eloUpperBound() {
+            return eloOf(result.winRate() + criticalValue * result.winRateStandardError());
+        }
+
+        /*
+         * Returns true if the pairing has played all its pairs of games or stops early
+         */
+        private boolean isOver(int maxPairs) {
+            return result.samples() >= maxPairs || isSignificant();
+        }
+
+        /*
+         * Returns the Elo difference corresponding to the given win rate, which is first kept half a game away
+         * from 0 and 1 so that the difference stays finite
+         */
+        private double eloOf(double winRate) {
+            double margin = 0.5 / result.games();
+            double rate = Math.min(Math.max(winRate, margin), 1 - margin);
+            return ELO_SCALE * Math.log10(rate / (1 - rate));
+        }
+    }
+
+    /**
+     * Plays a tournament between the configurations given as arguments, and writes the results of the pairings
+     * and the ratings of the configurations
+     *
+     * @param args the maximal number of pairs of games of a pairing, the seed of the deals, and the
+     *             specifications of at least two configurations (see PlayerFactory.of)
+     */
+    public static void main(String[] args) {
+        if (args.length < ARG_SIZE) {
+            System.err.println("Utilisation: java main.java.sim.Tournament <n_paires> <graine> <c1> <c2> [<c3>…] " +
+                    "où chaque configuration <cn> affronte toutes les autres dans au plus <n_paires> paires de " +
+                    "parties jouées avec les mêmes donnes, les configurations échangeant leurs places :\n" +
+                    "\trandom  des joueurs aléatoires\n" +
+                    "\tmcts:<n_itérations>:<options>  des joueurs simulés (algorithme MCTS) qui itèrent " +
+                    "<n_itérations> fois, avec les <options> des joueurs simulés de LocalMain\n\n" +
+                    "- Une rencontre s'arrête dès que le taux de victoires s'écarte significativement de 50 %, " +
+                    "après au moins " + MIN_PAIRS + " paires de parties (test séquentiel de Pocock au niveau de " +
+                    "5 %, dont la valeur critique élargit aussi les intervalles de confiance à 95 %).");
+            System.exit(EXIT_STATUS);
+        }
+
+        int maxPairs = 0;
+        long seed = 0;
+        try {
+            maxPairs = Integer.parseInt(args[INDEX_PAIRS]);
+            seed = Long.parseLong(args[INDEX_SEED]);
+            Preconditions.checkArgument(maxPairs >= 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Erreur : le nombre de paires de parties ou la graine est invalide");
+            System.exit(EXIT_STATUS);
+        }
+
+        Map<String, PlayerFactory> configurations = new LinkedHashMap<>();
+        for (int i = INDEX_FIRST_CONFIGURATION; i < args.length; i++) {
+            try {
+                configurations.put(args[i], PlayerFactory.of(args[i]));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Erreur : configuration de joueur invalide : " + args[i]);
+                System.exit(EXIT_STATUS);
+            }
+        }
+        if (configurations.size() < 2) {
+            System.err.println("Erreur : le tournoi doit avoir au moins deux configurations différentes");
+            System.exit(EXIT_STATUS);
+        }
+
+        List<Pairing> pairings;
+        Map<String, Double> ratings;
+        try (Tournament tournament = new Tournament(configurations, Runtime.getRuntime().availableProcessors())) {
+            pairings = tournament.play(maxPairs, seed);
+            ratings = tournament.ratings(pairings);
+        }
+        System.out.printf("Valeur critique des tests et des intervalles à 95 %% : %.2f%n", criticalValue(maxPairs));
+        for (Pairing pairing : pairings) {
+            SimulationResult result = pairing.result();
+            double criticalValue = pairing.criticalValue();
+            System.out.printf("%s contre %s : %d parties, %.1f %% ± %.1f %% de victoires, Elo %+.0f [%+.0f, %+.0f], " +
+                            "différence moyenne de %+.1f ± %.1f points%s%n", pairing.first(), pairing.second(),
+                    result.games(), 100 * result.winRate(), 100 * criticalValue * result.winRateStandardError(),
+                    pairing.elo(), pairing.eloLowerBound(), pairing.eloUpperBound(), result.averageDifferential(),
+                    criticalValue * result.differentialStandardError(),
+                    pairing.isSignificant() ? " (significatif)" : "");
+        }
+
+        System.out.println("Classement Elo :");
+        ratings.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .forEach(rating -> System.out.printf("\t%+.0f  %s%n", rating.getValue(), rating.getKey()));
+    }
+}
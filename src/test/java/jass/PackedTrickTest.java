@@ -0,0 +1,218 @@
+package test.java.jass;
+
+import main.java.jass.Card;
+import main.java.jass.PackedCard;
+import main.java.jass.PackedCardSet;
+import main.java.jass.PackedTrick;
+import main.java.jass.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of PackedTrick.playableCards, whose tables are checked against the algorithm they replaced
+ *
+ * @author Kilian Schneiter (287496)
+ * @author Capucine Berger(269503)
+ */
+
+public final class PackedTrickTest {
+
+    private static final int HANDS_PER_TRICK = 12;
+    private static final long COLOR_MASK = 0x1FFL;
+    private static final int SUBSET_OF_A_COLOR = 16;
+
+    @Test
+    void playableCardsWorksWithAnEmptyTrick() {
+        SplittableRandom rng = new SplittableRandom(2019);
+        for (Card.Color trump : Card.Color.ALL) {
+            int pkTrick = PackedTrick.firstEmpty(trump, PlayerId.PLAYER_1);
+            for (int i = 0; i < HANDS_PER_TRICK; i++) {
+                long pkHand = randomHand(rng, PackedCardSet.ALL_CARDS);
+                assertEquals(pkHand, PackedTrick.playableCards(pkTrick, pkHand));
+            }
+        }
+    }
+
+    @Test
+    void playableCardsIsEquivalentToTheReferenceForAllTricksOfOneToThreeCards() {
+        SplittableRandom rng = new SplittableRandom(2019);
+        for (Card.Color trump : Card.Color.ALL) {
+            for (int c0 = 0; c0 < PackedCardSet.size(PackedCardSet.ALL_CARDS); c0++) {
+                for (int c1 = -1; c1 < PackedCardSet.size(PackedCardSet.ALL_CARDS); c1++) {
+                    for (int c2 = -1; c2 < PackedCardSet.size(PackedCardSet.ALL_CARDS); c2++) {
+                        if (c1 == c0 || (c2 >= 0 && (c1 < 0 || c2 == c0 || c2 == c1)))
+                            continue;
+
+                        int pkTrick = PackedTrick.firstEmpty(trump, PlayerId.ALL.get(c0 % PlayerId.COUNT));
+                        for (int c : new int[]{c0, c1, c2}) {
+                            if (c >= 0)
+                                pkTrick = PackedTrick.withAddedCard(pkTrick, PackedCardSet.get(PackedCardSet.ALL_CARDS, c));
+                        }
+                        checkHands(rng, pkTrick);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void theBauerAloneNeverHasToBePlayedToFollowTheTrumpColor() {
+        for (Card.Color trump : Card.Color.ALL) {
+            Card.Color other = Card.Color.ALL.get((trump.ordinal() + 1) % Card.Color.COUNT);
+            int pkTrick = PackedTrick.withAddedCard(PackedTrick.firstEmpty(trump, PlayerId.PLAYER_1),
+                    PackedCard.pack(trump, Card.Rank.SIX));
+            long pkHand = PackedCardSet.union(PackedCardSet.singleton(PackedCard.pack(trump, Card.Rank.JACK)),
+                    PackedCardSet.union(PackedCardSet.singleton(PackedCard.pack(other, Card.Rank.SEVEN)),
+                            PackedCardSet.singleton(PackedCard.pack(other, Card.Rank.ACE))));
+
+            assertEquals(pkHand, PackedTrick.playableCards(pkTrick, pkHand));
+        }
+    }
+
+    @Test
+    void theBauerAloneNeverHasToBePlayedWithDiamondAndClubAsTrump() {
+        // These two trumps were wrongly forced by the previous implementation, whose int shift overflowed
+        for (Card.Color trump : new Card.Color[]{Card.Color.DIAMOND, Card.Color.CLUB}) {
+            int pkTrick = PackedTrick.withAddedCard(PackedTrick.firstEmpty(trump, PlayerId.PLAYER_3),
+                    PackedCard.pack(trump, Card.Rank.NINE));
+            pkTrick = PackedTrick.withAddedCard(pkTrick, PackedCard.pack(trump, Card.Rank.TEN));
+            long pkHand = PackedCardSet.union(PackedCardSet.singleton(PackedCard.pack(trump, Card.Rank.JACK)),
+                    PackedCardSet.singleton(PackedCard.pack(Card.Color.SPADE, Card.Rank.KING)));
+
+            assertEquals(pkHand, PackedTrick.playableCards(pkTrick, pkHand));
+        }
+    }
+
+    /*
+     * Compares playableCards with the reference for hands drawn from the cards not in the given trick, some of
+     * them rich in trumps or in the base colour, and one holding the Bauer and a colour which is not trump
+     */
+    private static void checkHands(SplittableRandom rng, int pkTrick) {
+        int trump = PackedTrick.trump(pkTrick).ordinal();
+        int baseColor = PackedTrick.baseColor(pkTrick).ordinal();
+        long free = PackedCardSet.ALL_CARDS;
+        for (int i = 0; i < PackedTrick.size(pkTrick); i++) {
+            free = PackedCardSet.remove(free, PackedTrick.card(pkTrick, i));
+        }
+
+        for (int i = 0; i < HANDS_PER_TRICK; i++) {
+            long cards = free;
+            if (i % 4 == 0)
+                cards &= COLOR_MASK << (trump * SUBSET_OF_A_COLOR);
+            else if (i % 4 == 1)
+                cards &= COLOR_MASK << (trump * SUBSET_OF_A_COLOR) | COLOR_MASK << (baseColor * SUBSET_OF_A_COLOR);
+            if (cards == PackedCardSet.EMPTY)
+                cards = free;
+
+            long pkHand = i == HANDS_PER_TRICK - 1
+                    ? free & (PackedCardSet.singleton(PackedCard.pack(Card.Color.ALL.get(trump), Card.Rank.JACK))
+                            | COLOR_MASK << ((trump + 1) % Card.Color.COUNT * SUBSET_OF_A_COLOR))
+                    : randomHand(rng, cards);
+            if (pkHand == PackedCardSet.EMPTY)
+                continue;
+
+            assertEquals(referencePlayableCards(pkTrick, pkHand), PackedTrick.playableCards(pkTrick, pkHand),
+                    () -> PackedTrick.toString(pkTrick) + " " + PackedCardSet.toString(pkHand));
+        }
+    }
+
+    /*
+     * Returns a hand of one to nine cards drawn from the given ones
+     */
+    private static long randomHand(SplittableRandom rng, long pkCards) {
+        int size = Math.min(1 + rng.nextInt(9), PackedCardSet.size(pkCards));
+        long pkHand = PackedCardSet.EMPTY;
+        while (PackedCardSet.size(pkHand) < size) {
+            pkHand = PackedCardSet.add(pkHand, PackedCardSet.get(pkCards, rng.nextInt(PackedCardSet.size(pkCards))));
+        }
+        return pkHand;
+    }
+
+    /*
+     * The algorithm of playableCards before its tables, with a single change : the Bauer alone is compared with
+     * a long (1L << ...), as the int shift of the previous implementation overflowed for DIAMOND and CLUB
+     */
+    private static long referencePlayableCards(int pkTrick, long pkHand) {
+        Card.Color trumpColor = PackedTrick.trump(pkTrick);
+        long subsetOfTrumpColor = PackedCardSet.subsetOfColor(pkHand, trumpColor);
+        int winningCardOfTheTrick = PackedTrick.card(pkTrick, indexOfWinningCard(pkTrick));
+        //First card of the trick
+        if (PackedTrick.isEmpty(pkTrick)) {
+            return pkHand;
+        } else {
+            long subsetOfTheRightColor = PackedCardSet.subsetOfColor(pkHand, PackedCard.color(PackedTrick.card(pkTrick, 0)));
+            //Can't follow on the first card
+            if (PackedCardSet.isEmpty(subsetOfTheRightColor)) {
+                //No trump in the hand (8), (9)
+                if (PackedCardSet.isEmpty(subsetOfTrumpColor))
+                    return pkHand;
+                else {
+                    long subsetOfTrumpAbove = PackedCardSet.intersection(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick));
+                    //A trump has already been played
+                    if (Card.ofPacked(winningCardOfTheTrick).color() == trumpColor) {
+                        //Hand contains trumpAbove
+                        if (setContainsCardAbove(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick))) {
+                            //Hand contains other colours (10)
+                            if (!PackedCardSet.isEmpty(PackedCardSet.difference(pkHand, subsetOfTrumpColor)))
+                                return PackedCardSet.union(subsetOfTrumpAbove, PackedCardSet.difference(pkHand, subsetOfTrumpColor));
+                                //(11)
+                            else
+                                return subsetOfTrumpAbove;
+                        } else {
+                            //(12)
+                            if (!PackedCardSet.isEmpty(PackedCardSet.difference(pkHand, subsetOfTrumpColor)))
+                                return PackedCardSet.difference(pkHand, subsetOfTrumpColor);
+                                //(13)
+                            else
+                                return subsetOfTrumpColor;
+                        }
+                        //(14)
+                    } else
+                        return pkHand;
+                }
+
+            } else {
+                long subsetOfTrumpAbove = PackedCardSet.intersection(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick));
+                //To check if base colour is trumpColor and if only remaining card in trump is JACK (4)
+                if (subsetOfTheRightColor == subsetOfTrumpColor) {
+                    if (subsetOfTrumpColor == 1L << (trumpColor.ordinal() * SUBSET_OF_A_COLOR + Card.Rank.JACK.ordinal()))
+                        return pkHand;
+                    //Trump has already been played
+                }
+                if (Card.ofPacked(winningCardOfTheTrick).color() == trumpColor) {
+                    //(3), (6)
+                    if (setContainsCardAbove(subsetOfTrumpColor, PackedCardSet.trumpAbove(winningCardOfTheTrick)))
+                        return PackedCardSet.union(subsetOfTrumpAbove, subsetOfTheRightColor);
+                        //(2), (5)
+                    else
+                        return subsetOfTheRightColor;
+                    //No trump has been played yet (7)
+                } else
+                    return PackedCardSet.union(subsetOfTrumpColor, subsetOfTheRightColor);
+            }
+        }
+    }
+
+    /*
+     * Returns true if the first set contains a card of the second one
+     */
+    private static boolean setContainsCardAbove(long pkCardSet1, long pkCardSet2) {
+        return !PackedCardSet.isEmpty(PackedCardSet.intersection(pkCardSet1, pkCardSet2));
+    }
+
+    /*
+     * Returns the index of the winning card of the given trick
+     */
+    private static int indexOfWinningCard(int pkTrick) {
+        int index = 0;
+        for (int i = 1; i < PackedTrick.size(pkTrick); i++) {
+            if (PackedCard.isBetter(PackedTrick.trump(pkTrick), PackedTrick.card(pkTrick, i),
+                    PackedTrick.card(pkTrick, index)))
+                index = i;
+        }
+        return index;
+    }
+}